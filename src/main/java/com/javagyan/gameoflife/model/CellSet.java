@@ -0,0 +1,251 @@
+package com.javagyan.gameoflife.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sparse form of a Universe that keeps only ALIVE cells, as a sorted array of keys. Unlike Universe, positions are
+ * absolute and may be negative, so a pattern can drift across the plane without being trimmed back to 0,0.
+ *
+ * A key holds the row in its upper 32 bits and the column with its sign bit flipped in its lower 32 bits, so that
+ * sorting keys sorts cells by row and then by column.
+ * @author Sanjeev Kumar
+ */
+public final class CellSet implements RegionView {
+
+    /** Set with no cells. */
+    public static final CellSet EMPTY = new CellSet(new long[0], 0);
+
+    /**
+     * Sorted keys of ALIVE cells.
+     */
+    private final long[] keys;
+
+    /**
+     * Count of keys in use.
+     */
+    private final int size;
+
+    /**
+     * Constructor. The keys must be sorted and unique; the array is kept, not copied.
+     *
+     * @param keys1
+     * @param size1
+     */
+    public CellSet(final long[] keys1, final int size1) {
+        keys        = keys1;
+        size        = size1;
+    }
+
+    /**
+     * Builds the set from ALIVE cells of a Universe, placing its top left corner at the given position.
+     * @param universe
+     * @param top
+     * @param left
+     * @return CellSet
+     */
+    public static CellSet of(final Universe universe, final int top, final int left) {
+        final List<Cell> aliveCells = universe.getAliveCells();
+        final long[] keys = new long[aliveCells.size()];
+        int i = 0;
+        for (final Cell cell : aliveCells) {
+            keys[i++] = key(top + cell.getRow(), left + cell.getColumn());
+        }
+        Arrays.sort(keys);
+        return new CellSet(keys, keys.length);
+    }
+
+    /**
+     * Key of a cell.
+     * @param row
+     * @param column
+     * @return long
+     */
+    public static long key(final int row, final int column) {
+        return ((long) row << Integer.SIZE) | ((column ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Row of a key.
+     * @param key
+     * @return int
+     */
+    public static int row(final long key) {
+        return (int) (key >> Integer.SIZE);
+    }
+
+    /**
+     * Column of a key.
+     * @param key
+     * @return int
+     */
+    public static int column(final long key) {
+        return ((int) key) ^ Integer.MIN_VALUE;
+    }
+
+    /**
+     * Count of ALIVE cells.
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Key at the given position in sort order.
+     * @param index
+     * @return long
+     */
+    public long getKey(final int index) {
+        return keys[index];
+    }
+
+    /**
+     * Returns the backing array, not a copy. Only the first size() keys are in use.
+     * @return long[]
+     */
+    public long[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * Copy of the set moved by the given count of rows and columns.
+     * @param rowShift
+     * @param columnShift
+     * @return CellSet
+     */
+    public CellSet translate(final int rowShift, final int columnShift) {
+        final long[] moved = new long[size];
+        for (int i = 0; i < size; i++) {
+            moved[i] = key(row(keys[i]) + rowShift, column(keys[i]) + columnShift);
+        }
+        return new CellSet(moved, size);
+    }
+
+    /**
+     * Smallest rectangle holding all ALIVE cells, an empty region if there are none.
+     * @return Region
+     */
+    public Region getBounds() {
+        if (size == 0) {
+            return new Region(0, 0, 0, 0);
+        }
+        int left = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            final int column = column(keys[i]);
+            left = Math.min(left, column);
+            right = Math.max(right, column);
+        }
+        final int top = row(keys[0]);
+        return new Region(top, left, (row(keys[size - 1]) - top) + 1, (right - left) + 1);
+    }
+
+    /**
+     * Checks if the cell at the given position is ALIVE.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    public boolean isAlive(final int row, final int column) {
+        return Arrays.binarySearch(keys, 0, size, key(row, column)) >= 0;
+    }
+
+    /**
+     * Counts ALIVE cells inside the region.
+     * @param region
+     * @return int
+     */
+    public int countAliveCells(final Region region) {
+        return visit(region, null);
+    }
+
+    /**
+     * Retrieves ALIVE cells inside the region, row by row.
+     * @param region
+     * @return List<Cell>
+     */
+    public List<Cell> getAliveCells(final Region region) {
+        final List<Cell> aliveCells = new ArrayList<Cell>();
+        visit(region, aliveCells);
+        return aliveCells;
+    }
+
+    /**
+     * Walks the keys inside the region, jumping with a binary search past cells left or right of it.
+     * @param region
+     * @param result list to add cells to, or null to only count them
+     * @return count of ALIVE cells in the region
+     */
+    private int visit(final Region region, final List<Cell> result) {
+        if (region.isEmpty()) {
+            return 0;
+        }
+        int found = 0;
+        int pos = lowerBound(key(region.getTop(), region.getLeft()));
+        while (pos < size) {
+            final int row = row(keys[pos]);
+            final int column = column(keys[pos]);
+            if (row >= region.getBottom()) {
+                break;
+            }
+            if (column < region.getLeft()) {
+                pos = lowerBound(key(row, region.getLeft()));
+            } else if (column >= region.getRight()) {
+                pos = lowerBound(key(row + 1, region.getLeft()));
+            } else {
+                found++;
+                if (result != null) {
+                    result.add(new Cell(row, column, State.ALIVE));
+                }
+                pos++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Index of the first key not less than the given key.
+     * @param key
+     * @return int
+     */
+    private int lowerBound(final long key) {
+        final int pos = Arrays.binarySearch(keys, 0, size, key);
+        return (pos >= 0) ? pos : (-pos - 1);
+    }
+
+    /**
+     * typical hash code generation algorithm.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        int hash = size;
+        for (int i = 0; i < size; i++) {
+            hash = (hash * 31) ^ (int) (keys[i] ^ (keys[i] >>> Integer.SIZE));
+        }
+        return hash;
+    }
+
+    /**
+     * Two sets are equal if they have ALIVE cells at the same absolute positions.
+     * @return boolean
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof CellSet) {
+            final CellSet other = (CellSet) o;
+            if (size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (keys[i] != other.keys[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
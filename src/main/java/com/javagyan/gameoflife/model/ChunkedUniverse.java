@@ -0,0 +1,821 @@
+package com.javagyan.gameoflife.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Board split in chunks of 64 x 64 cells, each kept in whichever of three containers is the smallest for its cells,
+ * in the manner of Roaring bitmaps: a sorted array of cell positions for a few cells, a bitmap of one long per row for
+ * many, or runs of consecutive cells for blocks and lines. Chunks without ALIVE cells are not kept at all. The
+ * container of a chunk is picked again every time a whole chunk is written. Single cells are written in place, and a
+ * chunk moves to another container only once its count of cells or runs crosses the size of the one it is in.
+ * Positions are absolute and may be negative, like those of CellSet.
+ *
+ * Not thread safe.
+ * @author Sanjeev Kumar
+ */
+public final class ChunkedUniverse implements RegionView {
+
+    /** Rows and columns of a chunk. */
+    public static final int CHUNK_SIZE = 64;
+
+    /** Cells of a chunk. */
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    /** Estimated bytes of bookkeeping per kept chunk: the map entry, its key and the container object. */
+    private static final int CHUNK_OVERHEAD = 80;
+
+    /**
+     * Kinds of container of a chunk.
+     */
+    public enum ContainerType {
+        /** No ALIVE cells, nothing is kept. */
+        EMPTY,
+        /** Sorted positions of the ALIVE cells, two bytes each. */
+        ARRAY,
+        /** One bit per cell, 512 bytes. */
+        BITMAP,
+        /** Start and length of each run of ALIVE cells in row major order, four bytes per run. */
+        RUN;
+    }
+
+    /** Containers by chunk key, a CellSet key of the chunk row and chunk column. */
+    private final TreeMap<Long, Container> chunks = new TreeMap<Long, Container>();
+
+    /**
+     * Board with the ALIVE cells of a set.
+     * @param cells
+     * @return ChunkedUniverse
+     */
+    public static ChunkedUniverse of(final CellSet cells) {
+        final Map<Long, long[]> bitmaps = new TreeMap<Long, long[]>();
+        for (int i = 0; i < cells.size(); i++) {
+            final int row = CellSet.row(cells.getKey(i));
+            final int column = CellSet.column(cells.getKey(i));
+            final Long chunk = CellSet.key(Math.floorDiv(row, CHUNK_SIZE), Math.floorDiv(column, CHUNK_SIZE));
+            long[] bitmap = bitmaps.get(chunk);
+            if (bitmap == null) {
+                bitmap = new long[CHUNK_SIZE];
+                bitmaps.put(chunk, bitmap);
+            }
+            bitmap[Math.floorMod(row, CHUNK_SIZE)] |= 1L << Math.floorMod(column, CHUNK_SIZE);
+        }
+        final ChunkedUniverse board = new ChunkedUniverse();
+        for (final Map.Entry<Long, long[]> entry : bitmaps.entrySet()) {
+            board.flush(entry.getKey(), entry.getValue());
+        }
+        return board;
+    }
+
+    /**
+     * Set of the ALIVE cells.
+     * @return CellSet
+     */
+    public CellSet toCellSet() {
+        final List<Cell> cells = getAliveCells(getBounds());
+        final long[] keys = new long[cells.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = CellSet.key(cells.get(i).getRow(), cells.get(i).getColumn());
+        }
+        return new CellSet(keys, keys.length);
+    }
+
+    /**
+     * Keys of the kept chunks in row major order, as CellSet keys of chunk row and chunk column.
+     * @return long[]
+     */
+    public long[] getChunkKeys() {
+        final long[] keys = new long[chunks.size()];
+        int i = 0;
+        for (final Long key : chunks.keySet()) {
+            keys[i++] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Writes the cells of a chunk into a bitmap of one long per row, all zero for a chunk that is not kept.
+     * @param chunkRow
+     * @param chunkColumn
+     * @param bitmap
+     */
+    public void getChunk(final int chunkRow, final int chunkColumn, final long[] bitmap) {
+        Arrays.fill(bitmap, 0);
+        final Container container = chunks.get(CellSet.key(chunkRow, chunkColumn));
+        if (container != null) {
+            container.fill(bitmap);
+        }
+    }
+
+    /**
+     * Replaces the cells of a chunk, picking the smallest container for them.
+     * @param chunkRow
+     * @param chunkColumn
+     * @param bitmap one long per row, bit c for column c
+     */
+    public void setChunk(final int chunkRow, final int chunkColumn, final long[] bitmap) {
+        flush(CellSet.key(chunkRow, chunkColumn), bitmap);
+    }
+
+    /**
+     * Sets state of a cell.
+     * @param row
+     * @param column
+     * @param alive
+     */
+    public void set(final int row, final int column, final boolean alive) {
+        final long key = CellSet.key(Math.floorDiv(row, CHUNK_SIZE), Math.floorDiv(column, CHUNK_SIZE));
+        final int position = (Math.floorMod(row, CHUNK_SIZE) * CHUNK_SIZE) + Math.floorMod(column, CHUNK_SIZE);
+        final Container container = chunks.get(key);
+        if (container == null) {
+            if (alive) {
+                chunks.put(key, new ArrayContainer(position));
+            }
+            return;
+        }
+        if (!container.set(position, alive)) {
+            return;
+        }
+        final ContainerType type = pick(container.getPopulation(), container.getRuns());
+        if (type == ContainerType.EMPTY) {
+            chunks.remove(key);
+        } else if (type != container.getType()) {
+            final long[] bitmap = new long[CHUNK_SIZE];
+            container.fill(bitmap);
+            store(key, bitmap, type, container.getPopulation(), container.getRuns());
+        }
+    }
+
+    /**
+     * Container kind of a chunk.
+     * @param chunkRow
+     * @param chunkColumn
+     * @return ContainerType
+     */
+    public ContainerType getContainerType(final int chunkRow, final int chunkColumn) {
+        final Container container = chunks.get(CellSet.key(chunkRow, chunkColumn));
+        return (container == null) ? ContainerType.EMPTY : container.getType();
+    }
+
+    /**
+     * Count of kept chunks of the given kind; EMPTY chunks are not kept and count as 0.
+     * @param type
+     * @return int
+     */
+    public int getChunkCount(final ContainerType type) {
+        int count = 0;
+        for (final Container container : chunks.values()) {
+            if (container.getType() == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Estimated bytes held by the board: the payload of every container plus a fixed bookkeeping cost per chunk.
+     * @return long
+     */
+    public long getMemoryBytes() {
+        long bytes = 0;
+        for (final Container container : chunks.values()) {
+            bytes += container.getBytes() + CHUNK_OVERHEAD;
+        }
+        return bytes;
+    }
+
+    /**
+     * Counts ALIVE cells.
+     * @return int
+     */
+    public int getPopulation() {
+        int population = 0;
+        for (final Container container : chunks.values()) {
+            population += container.getPopulation();
+        }
+        return population;
+    }
+
+    /**
+     * Smallest rectangle holding all ALIVE cells, an empty region if there are none.
+     * @return Region
+     */
+    public Region getBounds() {
+        if (chunks.isEmpty()) {
+            return new Region(0, 0, 0, 0);
+        }
+        int top = Integer.MAX_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        int left = Integer.MAX_VALUE;
+        int right = Integer.MIN_VALUE;
+        final long[] bitmap = new long[CHUNK_SIZE];
+        for (final Map.Entry<Long, Container> entry : chunks.entrySet()) {
+            final int rowBase = CellSet.row(entry.getKey()) * CHUNK_SIZE;
+            final int columnBase = CellSet.column(entry.getKey()) * CHUNK_SIZE;
+            Arrays.fill(bitmap, 0);
+            entry.getValue().fill(bitmap);
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                if (bitmap[r] != 0) {
+                    top = Math.min(top, rowBase + r);
+                    bottom = Math.max(bottom, rowBase + r);
+                    left = Math.min(left, columnBase + Long.numberOfTrailingZeros(bitmap[r]));
+                    right = Math.max(right, (columnBase + CHUNK_SIZE - 1) - Long.numberOfLeadingZeros(bitmap[r]));
+                }
+            }
+        }
+        return new Region(top, left, (bottom - top) + 1, (right - left) + 1);
+    }
+
+    /**
+     * Checks if the cell at the given position is ALIVE.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    public boolean isAlive(final int row, final int column) {
+        final Container container = chunks.get(CellSet.key(Math.floorDiv(row, CHUNK_SIZE),
+                Math.floorDiv(column, CHUNK_SIZE)));
+        return (container != null) && container.contains((Math.floorMod(row, CHUNK_SIZE) * CHUNK_SIZE)
+                + Math.floorMod(column, CHUNK_SIZE));
+    }
+
+    /**
+     * Counts ALIVE cells inside the region.
+     * @param region
+     * @return int
+     */
+    public int countAliveCells(final Region region) {
+        return visit(region, null);
+    }
+
+    /**
+     * Retrieves ALIVE cells inside the region, row by row.
+     * @param region
+     * @return List<Cell>
+     */
+    public List<Cell> getAliveCells(final Region region) {
+        final List<Cell> aliveCells = new ArrayList<Cell>();
+        visit(region, aliveCells);
+        return aliveCells;
+    }
+
+    /**
+     * Walks the chunks that meet the region one band of chunk rows at a time, and the rows of each band across all
+     * of its chunks, so that cells come out row by row.
+     * @param region
+     * @param result list to add cells to, or null to only count them
+     * @return count of ALIVE cells in the region
+     */
+    private int visit(final Region region, final List<Cell> result) {
+        if (region.isEmpty() || chunks.isEmpty()) {
+            return 0;
+        }
+        final int firstBand = Math.floorDiv(region.getTop(), CHUNK_SIZE);
+        final int lastBand = Math.floorDiv(region.getBottom() - 1, CHUNK_SIZE);
+        final int firstColumn = Math.floorDiv(region.getLeft(), CHUNK_SIZE);
+        final int lastColumn = Math.floorDiv(region.getRight() - 1, CHUNK_SIZE);
+        final SortedMap<Long, Container> inRows = chunks.subMap(CellSet.key(firstBand, Integer.MIN_VALUE), true,
+                CellSet.key(lastBand, Integer.MAX_VALUE), true);
+        int found = 0;
+        final List<long[]> bitmaps = new ArrayList<long[]>();
+        final List<Integer> columnBases = new ArrayList<Integer>();
+        int band = Integer.MIN_VALUE;
+        for (final Map.Entry<Long, Container> entry : inRows.entrySet()) {
+            final int chunkRow = CellSet.row(entry.getKey());
+            final int chunkColumn = CellSet.column(entry.getKey());
+            if ((chunkColumn < firstColumn) || (chunkColumn > lastColumn)) {
+                continue;
+            }
+            if (chunkRow != band) {
+                found += visitBand(band, bitmaps, columnBases, region, result);
+                bitmaps.clear();
+                columnBases.clear();
+                band = chunkRow;
+            }
+            final long[] bitmap = new long[CHUNK_SIZE];
+            entry.getValue().fill(bitmap);
+            bitmaps.add(bitmap);
+            columnBases.add(chunkColumn * CHUNK_SIZE);
+        }
+        return found + visitBand(band, bitmaps, columnBases, region, result);
+    }
+
+    /**
+     * Counts or collects the cells of one band of chunks inside the region.
+     * @param band chunk row of the band
+     * @param bitmaps cells of the chunks of the band, left to right
+     * @param columnBases first column of each chunk
+     * @param region
+     * @param result list to add cells to, or null to only count them
+     * @return int
+     */
+    private static int visitBand(final int band, final List<long[]> bitmaps, final List<Integer> columnBases,
+            final Region region, final List<Cell> result) {
+        int found = 0;
+        final int rowBase = band * CHUNK_SIZE;
+        final int from = Math.max(region.getTop(), rowBase);
+        final int to = Math.min(region.getBottom(), rowBase + CHUNK_SIZE);
+        for (int row = from; row < to; row++) {
+            for (int k = 0; k < bitmaps.size(); k++) {
+                final int columnBase = columnBases.get(k);
+                long word = bitmaps.get(k)[row - rowBase] & columnMask(region.getLeft() - columnBase,
+                        region.getRight() - columnBase);
+                found += Long.bitCount(word);
+                while ((result != null) && (word != 0)) {
+                    result.add(new Cell(row, columnBase + Long.numberOfTrailingZeros(word), State.ALIVE));
+                    word &= word - 1;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Bits of the columns from (inclusive) to (exclusive) of a chunk, clipped to the chunk.
+     * @param from
+     * @param to
+     * @return long
+     */
+    private static long columnMask(final int from, final int to) {
+        final int low = Math.max(0, from);
+        final int high = Math.min(CHUNK_SIZE, to);
+        if (low >= high) {
+            return 0;
+        }
+        final long upTo = (high == CHUNK_SIZE) ? -1L : ((1L << high) - 1);
+        return upTo & (-1L << low);
+    }
+
+    /**
+     * Stores a chunk in the smallest container for its cells, or drops it when it has none.
+     * @param key
+     * @param bitmap
+     */
+    private void flush(final long key, final long[] bitmap) {
+        int population = 0;
+        int runs = 0;
+        long previousLast = 0; // bit 63 of the previous row, to join runs across rows
+        for (final long word : bitmap) {
+            population += Long.bitCount(word);
+            final long starts = word & ~((word << 1) | previousLast);
+            runs += Long.bitCount(starts);
+            previousLast = word >>> (CHUNK_SIZE - 1);
+        }
+        final ContainerType type = pick(population, runs);
+        if (type == ContainerType.EMPTY) {
+            chunks.remove(key);
+        } else {
+            store(key, bitmap, type, population, runs);
+        }
+    }
+
+    /**
+     * Stores the cells of a chunk in a new container of the given kind.
+     * @param key
+     * @param bitmap
+     * @param type ARRAY, BITMAP or RUN
+     * @param population
+     * @param runs
+     */
+    private void store(final long key, final long[] bitmap, final ContainerType type, final int population,
+            final int runs) {
+        if (type == ContainerType.RUN) {
+            chunks.put(key, new RunContainer(bitmap, runs, population));
+        } else if (type == ContainerType.ARRAY) {
+            chunks.put(key, new ArrayContainer(bitmap, population, runs));
+        } else {
+            chunks.put(key, new BitmapContainer(bitmap, population, runs));
+        }
+    }
+
+    /**
+     * Smallest container for a chunk with the given counts of cells and runs.
+     * @param population
+     * @param runs
+     * @return ContainerType
+     */
+    private static ContainerType pick(final int population, final int runs) {
+        if (population == 0) {
+            return ContainerType.EMPTY;
+        } else if ((4 * runs) < Math.min(2 * population, BitmapContainer.BYTES)) {
+            return ContainerType.RUN;
+        } else if ((2 * population) < BitmapContainer.BYTES) {
+            return ContainerType.ARRAY;
+        }
+        return ContainerType.BITMAP;
+    }
+
+    /**
+     * Change in the count of runs of a container when the cell at a position flips, from its neighbours in row major
+     * order: a new cell joins the runs next to it, a cleared one splits its run.
+     * @param container
+     * @param position
+     * @param alive new state of the cell
+     * @return int
+     */
+    private static int runsDelta(final Container container, final int position, final boolean alive) {
+        int joined = 0;
+        if ((position > 0) && container.contains(position - 1)) {
+            joined++;
+        }
+        if ((position < (CHUNK_CELLS - 1)) && container.contains(position + 1)) {
+            joined++;
+        }
+        return alive ? (1 - joined) : (joined - 1);
+    }
+
+    /**
+     * typical hash code generation algorithm.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        return toCellSet().hashCode();
+    }
+
+    /**
+     * Two boards are equal if they have ALIVE cells at the same absolute positions, whatever their containers.
+     * @return boolean
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof ChunkedUniverse) {
+            return toCellSet().equals(((ChunkedUniverse) o).toCellSet());
+        }
+        return false;
+    }
+
+    /**
+     * Cells of one chunk.
+     */
+    private interface Container {
+        /**
+         * Kind of the container.
+         * @return ContainerType
+         */
+        ContainerType getType();
+
+        /**
+         * Count of ALIVE cells.
+         * @return int
+         */
+        int getPopulation();
+
+        /**
+         * Bytes of the payload.
+         * @return int
+         */
+        int getBytes();
+
+        /**
+         * Count of runs of ALIVE cells in row major order.
+         * @return int
+         */
+        int getRuns();
+
+        /**
+         * Checks if the cell at a position of the chunk, row * CHUNK_SIZE + column, is ALIVE.
+         * @param position
+         * @return boolean
+         */
+        boolean contains(int position);
+
+        /**
+         * Sets the bits of the ALIVE cells in a bitmap of one long per row.
+         * @param bitmap
+         */
+        void fill(long[] bitmap);
+
+        /**
+         * Sets or clears the cell at a position of the chunk in place.
+         * @param position
+         * @param alive
+         * @return boolean true if the cell changed
+         */
+        boolean set(int position, boolean alive);
+    }
+
+    /**
+     * Sorted positions of ALIVE cells.
+     */
+    private static final class ArrayContainer implements Container {
+        /** positions, row * CHUNK_SIZE + column, in the first size entries. */
+        private short[] positions;
+
+        /** count of ALIVE cells. */
+        private int size;
+
+        /** count of runs. */
+        private int runs;
+
+        /**
+         * Constructor for a single cell.
+         * @param position
+         */
+        ArrayContainer(final int position) {
+            positions = new short[] {(short) position};
+            size = 1;
+            runs = 1;
+        }
+
+        /**
+         * Constructor.
+         * @param bitmap
+         * @param population
+         * @param runs1
+         */
+        ArrayContainer(final long[] bitmap, final int population, final int runs1) {
+            positions = new short[population];
+            size = population;
+            runs = runs1;
+            int i = 0;
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                long word = bitmap[r];
+                while (word != 0) {
+                    positions[i++] = (short) ((r * CHUNK_SIZE) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        public ContainerType getType() {
+            return ContainerType.ARRAY;
+        }
+
+        public int getPopulation() {
+            return size;
+        }
+
+        public int getBytes() {
+            return 2 * positions.length;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public boolean contains(final int position) {
+            return Arrays.binarySearch(positions, 0, size, (short) position) >= 0;
+        }
+
+        public void fill(final long[] bitmap) {
+            for (int i = 0; i < size; i++) {
+                bitmap[positions[i] / CHUNK_SIZE] |= 1L << (positions[i] % CHUNK_SIZE);
+            }
+        }
+
+        public boolean set(final int position, final boolean alive) {
+            final int index = Arrays.binarySearch(positions, 0, size, (short) position);
+            if ((index >= 0) == alive) {
+                return false;
+            }
+            runs += runsDelta(this, position, alive);
+            if (alive) {
+                final int at = -index - 1;
+                if (size == positions.length) {
+                    positions = Arrays.copyOf(positions, 2 * size);
+                }
+                System.arraycopy(positions, at, positions, at + 1, size - at);
+                positions[at] = (short) position;
+                size++;
+            } else {
+                System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+                size--;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * One bit per cell.
+     */
+    private static final class BitmapContainer implements Container {
+        /** bytes of the payload. */
+        static final int BYTES = CHUNK_CELLS / Byte.SIZE;
+
+        /** one long per row. */
+        private final long[] words;
+
+        /** count of ALIVE cells. */
+        private int population;
+
+        /** count of runs. */
+        private int runs;
+
+        /**
+         * Constructor.
+         * @param bitmap
+         * @param population1
+         * @param runs1
+         */
+        BitmapContainer(final long[] bitmap, final int population1, final int runs1) {
+            words = bitmap.clone();
+            population = population1;
+            runs = runs1;
+        }
+
+        public ContainerType getType() {
+            return ContainerType.BITMAP;
+        }
+
+        public int getPopulation() {
+            return population;
+        }
+
+        public int getBytes() {
+            return BYTES;
+        }
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public boolean contains(final int position) {
+            return (words[position / CHUNK_SIZE] & (1L << (position % CHUNK_SIZE))) != 0;
+        }
+
+        public void fill(final long[] bitmap) {
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                bitmap[r] |= words[r];
+            }
+        }
+
+        public boolean set(final int position, final boolean alive) {
+            if (contains(position) == alive) {
+                return false;
+            }
+            runs += runsDelta(this, position, alive);
+            words[position / CHUNK_SIZE] ^= 1L << (position % CHUNK_SIZE);
+            population += alive ? 1 : -1;
+            return true;
+        }
+    }
+
+    /**
+     * Runs of ALIVE cells in row major order, which may go on from the end of a row to the start of the next.
+     */
+    private static final class RunContainer implements Container {
+        /** start position and length less one of each run, one after the other, in the first 2 * count entries. */
+        private short[] runs;
+
+        /** count of runs. */
+        private int count;
+
+        /** count of ALIVE cells. */
+        private int population;
+
+        /**
+         * Constructor.
+         * @param bitmap
+         * @param count1 count of runs
+         * @param population1
+         */
+        RunContainer(final long[] bitmap, final int count1, final int population1) {
+            runs = new short[2 * count1];
+            count = count1;
+            population = population1;
+            int i = -2;
+            int end = -2; // position just after the last run
+            for (int r = 0; r < CHUNK_SIZE; r++) {
+                long word = bitmap[r];
+                while (word != 0) {
+                    final int position = (r * CHUNK_SIZE) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    if (position == end) {
+                        runs[i + 1]++;
+                    } else {
+                        i += 2;
+                        runs[i] = (short) position;
+                    }
+                    end = position + 1;
+                }
+            }
+        }
+
+        public ContainerType getType() {
+            return ContainerType.RUN;
+        }
+
+        public int getPopulation() {
+            return population;
+        }
+
+        public int getBytes() {
+            return 2 * runs.length;
+        }
+
+        public int getRuns() {
+            return count;
+        }
+
+        public boolean contains(final int position) {
+            final int i = find(position);
+            return (i >= 0) && (position <= last(i));
+        }
+
+        public void fill(final long[] bitmap) {
+            for (int i = 0; i < (2 * count); i += 2) {
+                final int last = runs[i] + runs[i + 1];
+                for (int position = runs[i]; position <= last; position++) {
+                    bitmap[position / CHUNK_SIZE] |= 1L << (position % CHUNK_SIZE);
+                }
+            }
+        }
+
+        public boolean set(final int position, final boolean alive) {
+            final int i = find(position);
+            if (((i >= 0) && (position <= last(i))) == alive) {
+                return false;
+            }
+            if (alive) {
+                final boolean joinsLeft = (i >= 0) && (position == (last(i) + 1));
+                final boolean joinsRight = ((i + 1) < count) && ((position + 1) == runs[2 * (i + 1)]);
+                if (joinsLeft && joinsRight) {
+                    runs[(2 * i) + 1] = (short) (runs[(2 * i) + 1] + runs[(2 * i) + 3] + 2);
+                    remove(i + 1);
+                } else if (joinsLeft) {
+                    runs[(2 * i) + 1]++;
+                } else if (joinsRight) {
+                    runs[(2 * i) + 2]--;
+                    runs[(2 * i) + 3]++;
+                } else {
+                    insert(i + 1, position, 0);
+                }
+                population++;
+            } else {
+                final int start = runs[2 * i];
+                final int last = last(i);
+                if (start == last) {
+                    remove(i);
+                } else if (position == start) {
+                    runs[2 * i]++;
+                    runs[(2 * i) + 1]--;
+                } else if (position == last) {
+                    runs[(2 * i) + 1]--;
+                } else {
+                    runs[(2 * i) + 1] = (short) (position - start - 1);
+                    insert(i + 1, position + 1, last - position - 1);
+                }
+                population--;
+            }
+            return true;
+        }
+
+        /**
+         * Index of the last run starting at or before a position, -1 if there is none.
+         * @param position
+         * @return int
+         */
+        private int find(final int position) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                if (runs[2 * middle] <= position) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return high;
+        }
+
+        /**
+         * Last position of a run.
+         * @param i index of the run
+         * @return int
+         */
+        private int last(final int i) {
+            return runs[2 * i] + runs[(2 * i) + 1];
+        }
+
+        /**
+         * Inserts a run before the run at an index.
+         * @param i
+         * @param start
+         * @param lengthLessOne
+         */
+        private void insert(final int i, final int start, final int lengthLessOne) {
+            if ((2 * count) == runs.length) {
+                runs = Arrays.copyOf(runs, Math.max(2, 4 * count));
+            }
+            System.arraycopy(runs, 2 * i, runs, (2 * i) + 2, 2 * (count - i));
+            runs[2 * i] = (short) start;
+            runs[(2 * i) + 1] = (short) lengthLessOne;
+            count++;
+        }
+
+        /**
+         * Removes the run at an index.
+         * @param i
+         */
+        private void remove(final int i) {
+            System.arraycopy(runs, (2 * i) + 2, runs, 2 * i, 2 * (count - i - 1));
+            count--;
+        }
+    }
+}
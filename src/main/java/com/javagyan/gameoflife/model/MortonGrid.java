@@ -0,0 +1,323 @@
+package com.javagyan.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Compact form of a Universe kept in one array of 8x8 tiles, one long per tile, with bit (row % 8) * 8 + (column % 8)
+ * holding the cell. Tiles are laid out in Morton (Z) order: the bits of the tile row and tile column are interleaved
+ * into the index, so tiles that are close on the board are close in memory in both directions, not only along a row.
+ * A tile and its eight neighbours usually share a few cache lines, where in a row major layout the rows above and
+ * below are a whole row apart.
+ *
+ * Tiles are grouped in square blocks of up to 16 x 16 tiles (128 x 128 cells, 2 KB), Morton ordered inside and laid
+ * out row by row. A board is so padded by less than a block on each side instead of to a power of two square, and a
+ * block, the unit a stepping pass works through, fits in a level one cache. Bits outside the grid are always zero.
+ * @author Sanjeev Kumar
+ */
+public final class MortonGrid {
+    /** Rows and columns of a tile. */
+    public static final int TILE_SIZE = 8;
+
+    /** Log2 of the largest count of tile rows and columns of a block. */
+    private static final int MAX_BLOCK_LEVEL = 4;
+
+    /**
+     * Count of rows in the grid.
+     */
+    private final int rows;
+
+    /**
+     * Count of columns in the grid.
+     */
+    private final int columns;
+
+    /**
+     * Count of tile rows.
+     */
+    private final int tileRows;
+
+    /**
+     * Count of tile columns.
+     */
+    private final int tileColumns;
+
+    /**
+     * Log2 of the count of tile rows and columns of a block.
+     */
+    private final int level;
+
+    /**
+     * Count of blocks in a row of blocks.
+     */
+    private final int blocksPerRow;
+
+    /**
+     * Tiles in Morton order. Slots of tiles outside the grid stay zero.
+     */
+    private final long[] tiles;
+
+    /**
+     * Creates a grid with all cells DEAD.
+     *
+     * @param rows1
+     * @param columns1
+     */
+    public MortonGrid(final int rows1, final int columns1) {
+        rows        = rows1;
+        columns     = columns1;
+        tileRows    = (rows1 + TILE_SIZE - 1) / TILE_SIZE;
+        tileColumns = (columns1 + TILE_SIZE - 1) / TILE_SIZE;
+        final int shorter = Math.min(tileRows, tileColumns);
+        level       = Math.min(MAX_BLOCK_LEVEL,
+                (shorter <= 1) ? 0 : (Integer.SIZE - Integer.numberOfLeadingZeros(shorter - 1)));
+        blocksPerRow = (tileColumns + (1 << level) - 1) >> level;
+        final long blockRows = (tileRows + (1 << level) - 1) >> level;
+        tiles       = new long[Math.toIntExact((blockRows * blocksPerRow) << (2 * level))];
+    }
+
+    /**
+     * Copies a grid, placing its top left cell at (margin, margin) of a grid that is margin cells larger on every
+     * side.
+     * @param grid
+     * @param margin
+     * @return MortonGrid
+     */
+    public static MortonGrid of(final PackedGrid grid, final int margin) {
+        final MortonGrid result = new MortonGrid(grid.getRows() + (2 * margin), grid.getColumns() + (2 * margin));
+        final long[] words = grid.getWords();
+        final int wordsPerRow = grid.getWordsPerRow();
+        for (int i = 0; i < grid.getRows(); i++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = words[(i * wordsPerRow) + w];
+                while (word != 0) {
+                    final int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    result.set(i + margin, (w * PackedGrid.WORD_SIZE) + bit + margin, true);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies the grid into row major form.
+     * @return PackedGrid
+     */
+    public PackedGrid toPackedGrid() {
+        final PackedGrid grid = new PackedGrid(rows, columns);
+        for (int tr = 0; tr < tileRows; tr++) {
+            for (int tc = 0; tc < tileColumns; tc++) {
+                long tile = tiles[index(tr, tc)];
+                while (tile != 0) {
+                    final int bit = Long.numberOfTrailingZeros(tile);
+                    tile &= tile - 1;
+                    grid.set((tr * TILE_SIZE) + (bit / TILE_SIZE), (tc * TILE_SIZE) + (bit % TILE_SIZE), true);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Returns the count of rows in the grid.
+     * @return rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the count of columns in the grid.
+     * @return columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the count of tile rows.
+     * @return tileRows
+     */
+    public int getTileRows() {
+        return tileRows;
+    }
+
+    /**
+     * Returns the count of tile columns.
+     * @return tileColumns
+     */
+    public int getTileColumns() {
+        return tileColumns;
+    }
+
+    /**
+     * Returns the count of tile rows and columns of a block. The tiles of a block take getBlockSide() squared slots
+     * starting at a multiple of that count, and slot i of a block holds the tile of the same Morton position in every
+     * block.
+     * @return int
+     */
+    public int getBlockSide() {
+        return 1 << level;
+    }
+
+    /**
+     * Returns the backing tiles, not a copy, so that stepping kernels can work on them directly.
+     * @return long[]
+     */
+    public long[] getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Position of a tile in the backing array.
+     * @param tileRow
+     * @param tileColumn
+     * @return int
+     */
+    public int index(final int tileRow, final int tileColumn) {
+        final int mask = (1 << level) - 1;
+        final int block = ((tileRow >> level) * blocksPerRow) + (tileColumn >> level);
+        return (block << (2 * level)) | (spread(tileRow & mask) << 1) | spread(tileColumn & mask);
+    }
+
+    /**
+     * Tile row of a position in the backing array.
+     * @param index
+     * @return int
+     */
+    public int tileRow(final int index) {
+        final int low = index & ((1 << (2 * level)) - 1);
+        return (((index >>> (2 * level)) / blocksPerRow) << level) | compact(low >>> 1);
+    }
+
+    /**
+     * Tile column of a position in the backing array.
+     * @param index
+     * @return int
+     */
+    public int tileColumn(final int index) {
+        final int low = index & ((1 << (2 * level)) - 1);
+        return (((index >>> (2 * level)) % blocksPerRow) << level) | compact(low);
+    }
+
+    /**
+     * Tile at the given tile position, zero outside the grid.
+     * @param tileRow
+     * @param tileColumn
+     * @return long
+     */
+    public long getTile(final int tileRow, final int tileColumn) {
+        if ((tileRow < 0) || (tileRow >= tileRows) || (tileColumn < 0) || (tileColumn >= tileColumns)) {
+            return 0;
+        }
+        return tiles[index(tileRow, tileColumn)];
+    }
+
+    /**
+     * Mask of the bits of a tile that belong to the grid, all of them except in the last tile row or column.
+     * @param tileRow
+     * @param tileColumn
+     * @return long
+     */
+    public long getTileMask(final int tileRow, final int tileColumn) {
+        final int usedRows = Math.min(TILE_SIZE, rows - (tileRow * TILE_SIZE));
+        final int usedColumns = Math.min(TILE_SIZE, columns - (tileColumn * TILE_SIZE));
+        final long rowMask = (usedRows == TILE_SIZE) ? -1L : ((1L << (usedRows * TILE_SIZE)) - 1);
+        final long columnMask = ((1L << usedColumns) - 1) * 0x0101010101010101L;
+        return rowMask & columnMask;
+    }
+
+    /**
+     * Checks if the cell is ALIVE. Cells outside the grid are DEAD.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    public boolean isAlive(final int row, final int column) {
+        if ((row < 0) || (row >= rows) || (column < 0) || (column >= columns)) {
+            return false;
+        }
+        return (tiles[index(row / TILE_SIZE, column / TILE_SIZE)] & bit(row, column)) != 0;
+    }
+
+    /**
+     * Sets state of a cell inside the grid.
+     * @param row
+     * @param column
+     * @param alive
+     */
+    public void set(final int row, final int column, final boolean alive) {
+        final int index = index(row / TILE_SIZE, column / TILE_SIZE);
+        if (alive) {
+            tiles[index] |= bit(row, column);
+        } else {
+            tiles[index] &= ~bit(row, column);
+        }
+    }
+
+    /**
+     * Counts ALIVE cells.
+     * @return int
+     */
+    public int getPopulation() {
+        int population = 0;
+        for (final long tile : tiles) {
+            population += Long.bitCount(tile);
+        }
+        return population;
+    }
+
+    /**
+     * Bit of a cell within its tile.
+     * @param row
+     * @param column
+     * @return long
+     */
+    private static long bit(final int row, final int column) {
+        return 1L << (((row % TILE_SIZE) * TILE_SIZE) + (column % TILE_SIZE));
+    }
+
+    /**
+     * Moves bit i of the lower 4 bits to bit 2i.
+     * @param value
+     * @return int
+     */
+    private static int spread(final int value) {
+        int x = value & 0x0F;
+        x = (x | (x << 2)) & 0x33;
+        return (x | (x << 1)) & 0x55;
+    }
+
+    /**
+     * Moves bit 2i of the lower 8 bits to bit i, the reverse of spread.
+     * @param value
+     * @return int
+     */
+    private static int compact(final int value) {
+        int x = value & 0x55;
+        x = (x | (x >>> 1)) & 0x33;
+        return (x | (x >>> 2)) & 0x0F;
+    }
+
+    /**
+     * typical hash code generation algorithm.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        return (((rows * 31) ^ columns) * 31) ^ Arrays.hashCode(tiles);
+    }
+
+    /**
+     * Two grids are equal if they have same size and same ALIVE cells.
+     * @return boolean
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof MortonGrid) {
+            final MortonGrid other = (MortonGrid) o;
+            return (rows == other.rows) && (columns == other.columns) && Arrays.equals(tiles, other.tiles);
+        }
+        return false;
+    }
+}
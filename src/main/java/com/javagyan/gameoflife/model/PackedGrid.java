@@ -0,0 +1,229 @@
+package com.javagyan.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Compact form of a Universe that keeps one bit per cell. Every row starts on a fresh long, so bit (column % 64) of
+ * word (row * wordsPerRow + column / 64) holds the cell. Bits beyond the last column are always zero.
+ * @author Sanjeev Kumar
+ */
+public final class PackedGrid {
+    /** Bits in a word. */
+    public static final int WORD_SIZE = 64;
+
+    /**
+     * Count of rows in the grid.
+     */
+    private final int rows;
+
+    /**
+     * Count of columns in the grid.
+     */
+    private final int columns;
+
+    /**
+     * Count of words used by each row.
+     */
+    private final int wordsPerRow;
+
+    /**
+     * Cells of the grid, row after row.
+     */
+    private final long[] words;
+
+    /**
+     * Creates a grid with all cells DEAD.
+     *
+     * @param rows1
+     * @param columns1
+     */
+    public PackedGrid(final int rows1, final int columns1) {
+        rows        = rows1;
+        columns     = columns1;
+        wordsPerRow = (columns1 + WORD_SIZE - 1) / WORD_SIZE;
+        words       = new long[rows1 * wordsPerRow];
+    }
+
+    /**
+     * Returns the count of rows in the grid.
+     * @return rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the count of columns in the grid.
+     * @return columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the count of words used by each row.
+     * @return wordsPerRow
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Returns the backing words, not a copy, so that stepping kernels can work on them directly.
+     * @return long[]
+     */
+    public long[] getWords() {
+        return words;
+    }
+
+    /**
+     * Checks if the cell is ALIVE. Cells outside the grid are DEAD.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    public boolean isAlive(final int row, final int column) {
+        if ((row < 0) || (row >= rows) || (column < 0) || (column >= columns)) {
+            return false;
+        }
+        return (words[(row * wordsPerRow) + (column / WORD_SIZE)] & (1L << column)) != 0;
+    }
+
+    /**
+     * Sets state of a cell inside the grid.
+     * @param row
+     * @param column
+     * @param alive
+     */
+    public void set(final int row, final int column, final boolean alive) {
+        final int index = (row * wordsPerRow) + (column / WORD_SIZE);
+        if (alive) {
+            words[index] |= 1L << column;
+        } else {
+            words[index] &= ~(1L << column);
+        }
+    }
+
+    /**
+     * Returns 64 cells of a row starting at the given column, first cell in the lowest bit. Cells outside the grid
+     * are DEAD, so the column may be negative or run past the end of the row.
+     * @param row
+     * @param column
+     * @return long
+     */
+    public long getBits(final int row, final int column) {
+        if ((row < 0) || (row >= rows)) {
+            return 0;
+        }
+        final int base = row * wordsPerRow;
+        final int wordIndex = Math.floorDiv(column, WORD_SIZE);
+        final int shift = Math.floorMod(column, WORD_SIZE);
+        final long low = word(base, wordIndex);
+        if (shift == 0) {
+            return low;
+        }
+        return (low >>> shift) | (word(base, wordIndex + 1) << (WORD_SIZE - shift));
+    }
+
+    /**
+     * Word of a row, zero outside the row.
+     * @param base
+     * @param wordIndex
+     * @return long
+     */
+    private long word(final int base, final int wordIndex) {
+        return ((wordIndex < 0) || (wordIndex >= wordsPerRow)) ? 0 : words[base + wordIndex];
+    }
+
+    /**
+     * Mask of the bits of the last word of a row that belong to the grid.
+     * @return long
+     */
+    public long getLastWordMask() {
+        final int used = columns % WORD_SIZE;
+        return (used == 0) ? -1L : ((1L << used) - 1);
+    }
+
+    /**
+     * Smallest rectangle holding all ALIVE cells, found from the words in a single pass, an empty region if there are
+     * none.
+     * @return Region
+     */
+    public Region getBounds() {
+        int top = Integer.MAX_VALUE;
+        int bottom = -1;
+        int left = Integer.MAX_VALUE;
+        int right = -1;
+        for (int i = 0; i < rows; i++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                final long word = words[(i * wordsPerRow) + w];
+                if (word != 0) {
+                    top = Math.min(top, i);
+                    bottom = i;
+                    left = Math.min(left, (w * WORD_SIZE) + Long.numberOfTrailingZeros(word));
+                    right = Math.max(right, (((w + 1) * WORD_SIZE) - 1) - Long.numberOfLeadingZeros(word));
+                }
+            }
+        }
+        if (bottom < 0) {
+            return new Region(0, 0, 0, 0);
+        }
+        return new Region(top, left, (bottom - top) + 1, (right - left) + 1);
+    }
+
+    /**
+     * Copies the cells of a region into a new grid of the size of the region, a word at a time. Cells of the region
+     * outside this grid are DEAD.
+     * @param region
+     * @return PackedGrid
+     */
+    public PackedGrid crop(final Region region) {
+        final PackedGrid cropped = new PackedGrid(region.getRows(), region.getColumns());
+        if (cropped.wordsPerRow == 0) {
+            return cropped;
+        }
+        final long lastWordMask = cropped.getLastWordMask();
+        for (int i = 0; i < cropped.rows; i++) {
+            final int base = i * cropped.wordsPerRow;
+            for (int w = 0; w < cropped.wordsPerRow; w++) {
+                cropped.words[base + w] = getBits(region.getTop() + i, region.getLeft() + (w * WORD_SIZE));
+            }
+            cropped.words[(base + cropped.wordsPerRow) - 1] &= lastWordMask;
+        }
+        return cropped;
+    }
+
+    /**
+     * Counts ALIVE cells.
+     * @return int
+     */
+    public int getPopulation() {
+        int population = 0;
+        for (final long word : words) {
+            population += Long.bitCount(word);
+        }
+        return population;
+    }
+
+    /**
+     * typical hash code generation algorithm.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        return (((rows * 31) ^ columns) * 31) ^ Arrays.hashCode(words);
+    }
+
+    /**
+     * Two grids are equal if they have same size and same ALIVE cells.
+     * @return boolean
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof PackedGrid) {
+            final PackedGrid other = (PackedGrid) o;
+            return (rows == other.rows) && (columns == other.columns) && Arrays.equals(words, other.words);
+        }
+        return false;
+    }
+}
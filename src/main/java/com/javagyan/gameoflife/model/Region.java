@@ -0,0 +1,168 @@
+package com.javagyan.gameoflife.model;
+
+/**
+ * Rectangular area of a Universe, used to crop views and to restrict queries to a part of the Universe.
+ * @author Sanjeev Kumar
+ */
+public final class Region {
+    /**
+     * Row index of the top edge of the region.
+     */
+    private final int top;
+
+    /**
+     * Column index of the left edge of the region.
+     */
+    private final int left;
+
+    /**
+     * Count of rows covered by the region.
+     */
+    private final int rows;
+
+    /**
+     * Count of columns covered by the region.
+     */
+    private final int columns;
+
+    /**
+     * Constructor.
+     *
+     * @param top1
+     * @param left1
+     * @param rows1
+     * @param columns1
+     */
+    public Region(final int top1, final int left1, final int rows1, final int columns1) {
+        if ((rows1 < 0) || (columns1 < 0)) {
+            throw new IllegalArgumentException("Region can not have negative size: " + rows1 + "x" + columns1);
+        }
+        top         = top1;
+        left        = left1;
+        rows        = rows1;
+        columns     = columns1;
+    }
+
+    /**
+     * Region that covers the whole Universe.
+     * @param universe
+     * @return Region
+     */
+    public static Region of(final Universe universe) {
+        return new Region(0, 0, universe.getRows(), universe.getColumns());
+    }
+
+    /**
+     * gets row index of the top edge.
+     * @return top
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * gets column index of the left edge.
+     * @return left
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * gets count of rows in the region.
+     * @return rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * gets count of columns in the region.
+     * @return columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * gets row index just below the bottom edge.
+     * @return bottom (exclusive)
+     */
+    public int getBottom() {
+        return top + rows;
+    }
+
+    /**
+     * gets column index just after the right edge.
+     * @return right (exclusive)
+     */
+    public int getRight() {
+        return left + columns;
+    }
+
+    /**
+     * Checks if the region has no cells at all.
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return (rows == 0) || (columns == 0);
+    }
+
+    /**
+     * Checks if the cell at given position lies inside the region.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    public boolean contains(final int row, final int column) {
+        return (row >= top) && (row < getBottom()) && (column >= left) && (column < getRight());
+    }
+
+    /**
+     * Returns the part of this region that is shared with the other region. Returns an empty region if the two do not
+     * overlap.
+     * @param other
+     * @return Region
+     */
+    public Region intersect(final Region other) {
+        final int newTop = Math.max(top, other.top);
+        final int newLeft = Math.max(left, other.left);
+        final int newBottom = Math.min(getBottom(), other.getBottom());
+        final int newRight = Math.min(getRight(), other.getRight());
+        if ((newBottom <= newTop) || (newRight <= newLeft)) {
+            return new Region(newTop, newLeft, 0, 0);
+        }
+        return new Region(newTop, newLeft, newBottom - newTop, newRight - newLeft);
+    }
+
+    /**
+     * typical hash code generation algorithm.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        return (((((top * 31) ^ left) * 31) ^ rows) * 31) ^ columns;
+    }
+
+    /**
+     * Two regions are equal if they cover the same cells.
+     * @return boolean
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof Region) {
+            final Region other = (Region) o;
+            return (top == other.top) && (left == other.left) && (rows == other.rows) && (columns == other.columns);
+        }
+        return false;
+    }
+
+    /**
+     * Readable form of the region.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "Region[" + top + "," + left + " " + rows + "x" + columns + "]";
+    }
+}
@@ -0,0 +1,32 @@
+package com.javagyan.gameoflife.model;
+
+import java.util.List;
+
+/**
+ * Read access to a rectangular part of a Universe without going through the complete collection of cells.
+ * @author Sanjeev Kumar
+ */
+public interface RegionView {
+
+    /**
+     * Checks if the cell at the given position is ALIVE. Positions outside the Universe are DEAD.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    boolean isAlive(int row, int column);
+
+    /**
+     * Counts ALIVE cells inside the region.
+     * @param region
+     * @return int
+     */
+    int countAliveCells(Region region);
+
+    /**
+     * Retrieves ALIVE cells inside the region.
+     * @param region
+     * @return List<Cell>
+     */
+    List<Cell> getAliveCells(Region region);
+}
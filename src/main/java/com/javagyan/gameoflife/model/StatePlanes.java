@@ -0,0 +1,232 @@
+package com.javagyan.gameoflife.model;
+
+import java.util.Arrays;
+
+/**
+ * Board of cells with any count of states, kept as bit planes: the state of a cell is a number of
+ * ceil(log2(states)) bits, and plane i is a PackedGrid holding bit i of every cell. Two states take one plane, the
+ * same memory as a PackedGrid, and 256 states take eight, where an object per cell would take far more.
+ *
+ * State 0 is DEAD and state 1 ALIVE; the meaning of the other states is left to the rule.
+ * @author Sanjeev Kumar
+ */
+public final class StatePlanes {
+
+    /**
+     * Count of states.
+     */
+    private final int states;
+
+    /**
+     * Bit i of the state of every cell in plane i.
+     */
+    private final PackedGrid[] planes;
+
+    /**
+     * Creates a board with all cells in state 0.
+     *
+     * @param rows
+     * @param columns
+     * @param states1 count of states, at least 2
+     */
+    public StatePlanes(final int rows, final int columns, final int states1) {
+        if (states1 < 2) {
+            throw new IllegalArgumentException("Count of states must be at least 2: " + states1);
+        }
+        states      = states1;
+        planes      = new PackedGrid[planesFor(states1)];
+        for (int i = 0; i < planes.length; i++) {
+            planes[i] = new PackedGrid(rows, columns);
+        }
+    }
+
+    /**
+     * Board over the given planes.
+     *
+     * @param states1 count of states
+     * @param planes1 one plane per bit of the state, all of the same size
+     */
+    private StatePlanes(final int states1, final PackedGrid[] planes1) {
+        states      = states1;
+        planes      = planes1;
+    }
+
+    /**
+     * Board with the ALIVE cells of a Universe in state 1 and all other cells in state 0.
+     * @param universe
+     * @param states count of states
+     * @return StatePlanes
+     */
+    public static StatePlanes of(final Universe universe, final int states) {
+        final StatePlanes board = new StatePlanes(universe.getRows(), universe.getColumns(), states);
+        for (final Cell cell : universe.getCells()) {
+            if (State.ALIVE.equals(cell.getState())) {
+                board.planes[0].set(cell.getRow(), cell.getColumn(), true);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Count of planes needed for the given count of states.
+     * @param states
+     * @return int
+     */
+    public static int planesFor(final int states) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(states - 1);
+    }
+
+    /**
+     * Returns the count of rows.
+     * @return int
+     */
+    public int getRows() {
+        return planes[0].getRows();
+    }
+
+    /**
+     * Returns the count of columns.
+     * @return int
+     */
+    public int getColumns() {
+        return planes[0].getColumns();
+    }
+
+    /**
+     * Returns the count of states.
+     * @return int
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     * Returns the plane of the given bit, not a copy, so that stepping kernels can work on it directly.
+     * @param bit
+     * @return PackedGrid
+     */
+    public PackedGrid getPlane(final int bit) {
+        return planes[bit];
+    }
+
+    /**
+     * Returns the count of planes.
+     * @return int
+     */
+    public int getPlaneCount() {
+        return planes.length;
+    }
+
+    /**
+     * State of a cell, 0 outside the board.
+     * @param row
+     * @param column
+     * @return int
+     */
+    public int getState(final int row, final int column) {
+        int state = 0;
+        for (int i = 0; i < planes.length; i++) {
+            if (planes[i].isAlive(row, column)) {
+                state |= 1 << i;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Sets the state of a cell inside the board.
+     * @param row
+     * @param column
+     * @param state
+     */
+    public void setState(final int row, final int column, final int state) {
+        if ((state < 0) || (state >= states)) {
+            throw new IllegalArgumentException("State must be between 0 and " + (states - 1) + ": " + state);
+        }
+        for (int i = 0; i < planes.length; i++) {
+            planes[i].set(row, column, ((state >> i) & 1) != 0);
+        }
+    }
+
+    /**
+     * Cells in state 1, as a grid of the same size.
+     * @return PackedGrid
+     */
+    public PackedGrid getAlive() {
+        final PackedGrid alive = new PackedGrid(getRows(), getColumns());
+        final long[] words = alive.getWords();
+        System.arraycopy(planes[0].getWords(), 0, words, 0, words.length);
+        for (int i = 1; i < planes.length; i++) {
+            final long[] plane = planes[i].getWords();
+            for (int w = 0; w < words.length; w++) {
+                words[w] &= ~plane[w];
+            }
+        }
+        return alive;
+    }
+
+    /**
+     * Counts cells in the given state.
+     * @param state
+     * @return int
+     */
+    public int count(final int state) {
+        final int wordsPerRow = planes[0].getWordsPerRow();
+        int count = 0;
+        for (int w = 0; w < planes[0].getWords().length; w++) {
+            long match = ((w % wordsPerRow) == (wordsPerRow - 1)) ? planes[0].getLastWordMask() : -1L;
+            for (int i = 0; i < planes.length; i++) {
+                final long plane = planes[i].getWords()[w];
+                match &= (((state >> i) & 1) != 0) ? plane : ~plane;
+            }
+            count += Long.bitCount(match);
+        }
+        return count;
+    }
+
+    /**
+     * Smallest copy of the board that holds every cell not in state 0, found and copied a word at a time.
+     * @return StatePlanes
+     */
+    public StatePlanes trim() {
+        final PackedGrid occupied = new PackedGrid(getRows(), getColumns());
+        final long[] words = occupied.getWords();
+        for (final PackedGrid plane : planes) {
+            final long[] bits = plane.getWords();
+            for (int w = 0; w < words.length; w++) {
+                words[w] |= bits[w];
+            }
+        }
+        final Region bounds = occupied.getBounds();
+        if (bounds.isEmpty()) {
+            return new StatePlanes(0, 0, states);
+        }
+        final PackedGrid[] cropped = new PackedGrid[planes.length];
+        for (int i = 0; i < planes.length; i++) {
+            cropped[i] = planes[i].crop(bounds);
+        }
+        return new StatePlanes(states, cropped);
+    }
+
+    /**
+     * typical hash code generation algorithm.
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        return (states * 31) ^ Arrays.hashCode(planes);
+    }
+
+    /**
+     * Two boards are equal if they have the same size, count of states and state of every cell.
+     * @return boolean
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof StatePlanes) {
+            final StatePlanes other = (StatePlanes) o;
+            return (states == other.states) && Arrays.equals(planes, other.planes);
+        }
+        return false;
+    }
+}
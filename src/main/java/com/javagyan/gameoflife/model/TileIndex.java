@@ -0,0 +1,199 @@
+package com.javagyan.gameoflife.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Spatial index over ALIVE cells. The plane is cut into 8x8 tiles and every tile that has at least one ALIVE cell is
+ * kept as a single long (bit (row % 8) * 8 + (column % 8)). Tiles are sorted by tile row and then tile column, so a
+ * region query only visits occupied tiles that overlap the region and its cost follows the result, not the size of
+ * the Universe.
+ * @author Sanjeev Kumar
+ */
+final class TileIndex {
+
+    /** log2 of the side of a tile. */
+    private static final int TILE_SHIFT = 3;
+
+    /** Side of a tile. */
+    private static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+    /** Mask to get position inside a tile. */
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    /** Bits reserved for tile column in a tile key. */
+    private static final int KEY_SHIFT = 28;
+
+    /** Sorted keys of occupied tiles. */
+    private final long[] keys;
+
+    /** Bits of ALIVE cells of each tile, parallel to keys. */
+    private final long[] tiles;
+
+    /**
+     * Builds the index from the cells of a Universe.
+     * @param cells
+     */
+    TileIndex(final List<Cell> cells) {
+        long[] cellKeys = new long[16];
+        int count = 0;
+        for (final Cell cell : cells) {
+            if (State.ALIVE.equals(cell.getState())) {
+                if (count == cellKeys.length) {
+                    cellKeys = Arrays.copyOf(cellKeys, count * 2);
+                }
+                cellKeys[count++] = (key(cell.getRow() >> TILE_SHIFT, cell.getColumn() >> TILE_SHIFT) << 6)
+                        | bit(cell.getRow(), cell.getColumn());
+            }
+        }
+        Arrays.sort(cellKeys, 0, count);
+        int tileCount = 0;
+        for (int i = 0; i < count; i++) {
+            if ((i == 0) || ((cellKeys[i] >>> 6) != (cellKeys[i - 1] >>> 6))) {
+                tileCount++;
+            }
+        }
+        keys = new long[tileCount];
+        tiles = new long[tileCount];
+        int tile = -1;
+        for (int i = 0; i < count; i++) {
+            if ((i == 0) || ((cellKeys[i] >>> 6) != (cellKeys[i - 1] >>> 6))) {
+                tile++;
+                keys[tile] = cellKeys[i] >>> 6;
+            }
+            tiles[tile] |= 1L << (cellKeys[i] & 63);
+        }
+    }
+
+    /**
+     * Checks if the cell is ALIVE.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    boolean isAlive(final int row, final int column) {
+        if ((row < 0) || (column < 0)) {
+            return false;
+        }
+        final int pos = Arrays.binarySearch(keys, key(row >> TILE_SHIFT, column >> TILE_SHIFT));
+        return (pos >= 0) && ((tiles[pos] & (1L << bit(row, column))) != 0);
+    }
+
+    /**
+     * Counts ALIVE cells in the region.
+     * @param region
+     * @return int
+     */
+    int count(final Region region) {
+        return visit(region, null);
+    }
+
+    /**
+     * Adds ALIVE cells in the region to the list.
+     * @param region
+     * @param result
+     */
+    void collect(final Region region, final List<Cell> result) {
+        visit(region, result);
+    }
+
+    /**
+     * Walks the occupied tiles overlapping the region, jumping straight to the next occupied tile row or column with a
+     * binary search whenever a tile falls outside the region.
+     * @param region region already clipped to the Universe
+     * @param result list to add cells to, or null to only count them
+     * @return count of ALIVE cells in the region
+     */
+    private int visit(final Region region, final List<Cell> result) {
+        if (region.isEmpty()) {
+            return 0;
+        }
+        final int firstTileRow = region.getTop() >> TILE_SHIFT;
+        final int lastTileRow = (region.getBottom() - 1) >> TILE_SHIFT;
+        final int firstTileColumn = region.getLeft() >> TILE_SHIFT;
+        final int lastTileColumn = (region.getRight() - 1) >> TILE_SHIFT;
+
+        int found = 0;
+        int pos = lowerBound(key(firstTileRow, firstTileColumn));
+        while (pos < keys.length) {
+            final int tileRow = (int) (keys[pos] >>> KEY_SHIFT);
+            final int tileColumn = (int) (keys[pos] & ((1L << KEY_SHIFT) - 1));
+            if (tileRow > lastTileRow) {
+                break;
+            }
+            if (tileColumn < firstTileColumn) {
+                pos = lowerBound(key(tileRow, firstTileColumn));
+                continue;
+            }
+            if (tileColumn > lastTileColumn) {
+                pos = lowerBound(key(tileRow + 1, firstTileColumn));
+                continue;
+            }
+            final long bits = tiles[pos] & mask(region, tileRow, tileColumn);
+            found += Long.bitCount(bits);
+            if (result != null) {
+                long remaining = bits;
+                while (remaining != 0) {
+                    final int b = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    result.add(new Cell((tileRow << TILE_SHIFT) + (b >> TILE_SHIFT),
+                            (tileColumn << TILE_SHIFT) + (b & TILE_MASK), State.ALIVE));
+                }
+            }
+            pos++;
+        }
+        return found;
+    }
+
+    /**
+     * Bits of a tile that lie inside the region.
+     * @param region
+     * @param tileRow
+     * @param tileColumn
+     * @return long
+     */
+    private static long mask(final Region region, final int tileRow, final int tileColumn) {
+        final int rowBase = tileRow << TILE_SHIFT;
+        final int columnBase = tileColumn << TILE_SHIFT;
+        final int fromRow = Math.max(0, region.getTop() - rowBase);
+        final int toRow = Math.min(TILE_SIZE, region.getBottom() - rowBase);
+        final int fromColumn = Math.max(0, region.getLeft() - columnBase);
+        final int toColumn = Math.min(TILE_SIZE, region.getRight() - columnBase);
+        final long rowMask = ((1L << toColumn) - 1) & ~((1L << fromColumn) - 1);
+        long mask = 0;
+        for (int r = fromRow; r < toRow; r++) {
+            mask |= rowMask << (r << TILE_SHIFT);
+        }
+        return mask;
+    }
+
+    /**
+     * Index of the first key not less than the given key.
+     * @param key
+     * @return int
+     */
+    private int lowerBound(final long key) {
+        final int pos = Arrays.binarySearch(keys, key);
+        return (pos >= 0) ? pos : (-pos - 1);
+    }
+
+    /**
+     * Sort key of a tile, ordered by tile row and then tile column.
+     * @param tileRow
+     * @param tileColumn
+     * @return long
+     */
+    private static long key(final int tileRow, final int tileColumn) {
+        return ((long) tileRow << KEY_SHIFT) | tileColumn;
+    }
+
+    /**
+     * Bit of a cell inside its tile.
+     * @param row
+     * @param column
+     * @return int
+     */
+    private static int bit(final int row, final int column) {
+        return ((row & TILE_MASK) << TILE_SHIFT) | (column & TILE_MASK);
+    }
+}
@@ -11,7 +11,7 @@ import java.util.List;
  * @author Sanjeev Kumar
  *
  */
-public final class Universe {
+public final class Universe implements RegionView {
     /**
      * Boundary parameters of Universe. Represents rows in the Universe.
      */
@@ -27,6 +27,11 @@ public final class Universe {
      */
     private final List<Cell> cells;
 
+    /**
+     * Spatial index over ALIVE cells, built on the first region query.
+     */
+    private volatile TileIndex index;
+
     /**
      * Constructor.
      *
@@ -85,6 +90,50 @@ public final class Universe {
         return aliveCells;
     }
 
+    /**
+     * Checks if the cell at the given position is ALIVE. Positions outside the Universe are DEAD.
+     * @param row
+     * @param column
+     * @return boolean
+     */
+    public boolean isAlive(final int row, final int column) {
+        return (row < rows) && (column < columns) && getIndex().isAlive(row, column);
+    }
+
+    /**
+     * Counts ALIVE cells inside the region. Only the part of the region that overlaps the Universe is looked at.
+     * @param region
+     * @return int
+     */
+    public int countAliveCells(final Region region) {
+        return getIndex().count(Region.of(this).intersect(region));
+    }
+
+    /**
+     * Retrieves ALIVE cells inside the region, grouped by the 8x8 tiles of the index.
+     * @param region
+     * @return List<Cell>
+     */
+    public List<Cell> getAliveCells(final Region region) {
+        final List<Cell> aliveCells = new ArrayList<Cell>();
+        getIndex().collect(Region.of(this).intersect(region), aliveCells);
+        return aliveCells;
+    }
+
+    /**
+     * Returns the spatial index, building it on first use. Concurrent callers may each build one, which is harmless
+     * as the index never changes once built.
+     * @return TileIndex
+     */
+    private TileIndex getIndex() {
+        TileIndex result = index;
+        if (result == null) {
+            result = new TileIndex(cells);
+            index = result;
+        }
+        return result;
+    }
+
     /**
      * typical hash code generation algorithm.
      * @return int
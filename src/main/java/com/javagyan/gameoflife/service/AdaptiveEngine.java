@@ -0,0 +1,180 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.Universe;
+
+/**
+ * Engine that delegates to whichever engine is expected to be fastest for the board as it is now. Every few
+ * generations it measures size, population and period of the board, asks every engine for its estimated cost and
+ * switches when another engine is clearly cheaper than the current one. Each switch is logged with its reason.
+ *
+ * Keeps state about the run it is stepping, so use a fresh instance per run.
+ * @author Sanjeev Kumar
+ */
+public final class AdaptiveEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "adaptive";
+
+    /** Generations between two measurements of the board. */
+    public static final int SAMPLE_INTERVAL = 8;
+
+    /** Longest period that is looked for. */
+    private static final int MAX_PERIOD = 32;
+
+    /** Share of the current cost another engine has to beat before a switch, to avoid flapping between engines. */
+    private static final double SWITCH_THRESHOLD = 0.8;
+
+    /** Logger for engine switches. */
+    private static final Logger LOGGER = Logger.getLogger(AdaptiveEngine.class.getName());
+
+    /** Engines to choose from. */
+    private final List<LifeEngine> engines;
+
+    /** Fingerprints of the most recent generations, used to find the period. */
+    private final long[] fingerprints = new long[(2 * MAX_PERIOD) + 1];
+
+    /** Reasons of all switches so far. */
+    private final List<String> switches = new ArrayList<String>();
+
+    /** Engine in use. */
+    private LifeEngine current;
+
+    /** Count of generations stepped so far. */
+    private int generation;
+
+    /**
+     * Chooses among all engines found by LifeEngines.load().
+     */
+    public AdaptiveEngine() {
+        this(LifeEngines.load());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param engines engines to choose from
+     */
+    public AdaptiveEngine(final List<LifeEngine> engines) {
+        if (engines.isEmpty()) {
+            throw new IllegalArgumentException("No engines to choose from");
+        }
+        this.engines = new ArrayList<LifeEngine>(engines);
+    }
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Measures the board, switches engine if needed, and delegates.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        final List<Cell> aliveCells = universe.getAliveCells();
+        fingerprints[generation % fingerprints.length] = fingerprint(universe, aliveCells);
+        if ((current == null) || ((generation % SAMPLE_INTERVAL) == 0)) {
+            choose(new BoardProfile(universe.getRows(), universe.getColumns(), aliveCells.size(), findPeriod()));
+        }
+        generation++;
+        return current.nextGeneration(universe);
+    }
+
+    /**
+     * Cost of the engine in use.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        return (current == null) ? Double.POSITIVE_INFINITY : current.estimateCost(profile);
+    }
+
+    /**
+     * Engine in use, null before the first generation.
+     * @return LifeEngine
+     */
+    public LifeEngine getCurrentEngine() {
+        return current;
+    }
+
+    /**
+     * Reasons of all switches so far, the first choice included.
+     * @return List<String>
+     */
+    public List<String> getSwitches() {
+        return Collections.unmodifiableList(switches);
+    }
+
+    /**
+     * Picks the cheapest engine for the profile and switches to it if it beats the current one clearly.
+     * @param profile
+     */
+    private void choose(final BoardProfile profile) {
+        LifeEngine best = null;
+        double bestCost = Double.POSITIVE_INFINITY;
+        for (final LifeEngine engine : engines) {
+            final double cost = engine.estimateCost(profile);
+            if ((best == null) || (cost < bestCost)) {
+                best = engine;
+                bestCost = cost;
+            }
+        }
+        if (best == current) {
+            return;
+        }
+        final double currentCost = (current == null) ? Double.POSITIVE_INFINITY : current.estimateCost(profile);
+        if ((current != null) && (bestCost >= (currentCost * SWITCH_THRESHOLD))) {
+            return;
+        }
+        final String reason = String.format("generation %d: %s -> %s (cost %.0f vs %.0f) on %s", generation,
+                (current == null) ? "none" : current.getName(), best.getName(), bestCost, currentCost, profile);
+        LOGGER.info("Switching engine at " + reason);
+        switches.add(reason);
+        current = best;
+    }
+
+    /**
+     * Smallest period that the last two cycles of fingerprints agree on, 0 if there is none.
+     * @return int
+     */
+    private int findPeriod() {
+        for (int period = 1; period <= MAX_PERIOD; period++) {
+            if (generation < (2 * period)) {
+                return 0;
+            }
+            boolean repeats = true;
+            for (int i = 0; (i < period) && repeats; i++) {
+                repeats = fingerprints[(generation - i) % fingerprints.length]
+                        == fingerprints[(generation - i - period) % fingerprints.length];
+            }
+            if (repeats) {
+                return period;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Hash of the size and ALIVE cells of the board.
+     * @param universe
+     * @param aliveCells
+     * @return long
+     */
+    private static long fingerprint(final Universe universe, final List<Cell> aliveCells) {
+        long hash = (universe.getRows() * 31L) + universe.getColumns();
+        for (final Cell cell : aliveCells) {
+            hash = (hash * 1000003L) ^ ((((long) cell.getRow()) << Integer.SIZE) | cell.getColumn());
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,252 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.State;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Plays up to 64 small universes at once. The seeds are laid over each other in one board of longs where bit i of
+ * every word belongs to seed i (its lane), so one pass of the word level rules in WordLogic steps all of them. The
+ * board leaves more dead cells around the largest seed than a pattern can grow within GENERATIONS_LIMIT, so the
+ * results are the same as playing each seed on its own.
+ *
+ * Each lane stops the way play(seed) stops: when the limit is reached, when an earlier generation died out, or when a
+ * generation repeats an earlier one. Only generations that end up in the results are turned into Universe objects.
+ * @author Sanjeev Kumar
+ */
+public final class BatchEngine {
+
+    /** Count of seeds stepped in one pass. */
+    public static final int LANES = 64;
+
+    /**
+     * Plays every seed, LANES at a time.
+     * @param seeds
+     * @return generations of each seed, as play(seed) would return them
+     */
+    public List<List<Universe>> play(final List<Universe> seeds) {
+        final List<List<Universe>> results = new ArrayList<List<Universe>>();
+        for (int from = 0; from < seeds.size(); from += LANES) {
+            results.addAll(new Batch(seeds.subList(from, Math.min(seeds.size(), from + LANES))).play());
+        }
+        return results;
+    }
+
+    /**
+     * One pass of up to LANES seeds.
+     */
+    private static final class Batch {
+        /** dead cells around the largest seed, one more than the generations a lane can be stepped. */
+        private static final int MARGIN = UniverseUtil.GENERATIONS_LIMIT + 1;
+
+        /** seeds of the lanes. */
+        private final List<Universe> seeds;
+
+        /** rows of the board. */
+        private final int rows;
+
+        /** columns of the board. */
+        private final int columns;
+
+        /** every generation so far, one word per cell. */
+        private final List<long[]> boards = new ArrayList<long[]>();
+
+        /** per generation and lane: population. */
+        private final List<int[]> populations = new ArrayList<int[]>();
+
+        /** per generation and lane: top, left, bottom, right of the ALIVE cells, and top, left of the origin. */
+        private final List<int[][]> bounds = new ArrayList<int[][]>();
+
+        /**
+         * Lays the seeds over each other.
+         * @param seeds
+         */
+        Batch(final List<Universe> seeds) {
+            this.seeds = seeds;
+            int maxRows = 0;
+            int maxColumns = 0;
+            for (final Universe seed : seeds) {
+                maxRows = Math.max(maxRows, seed.getRows());
+                maxColumns = Math.max(maxColumns, seed.getColumns());
+            }
+            rows = maxRows + (2 * MARGIN);
+            columns = maxColumns + (2 * MARGIN);
+            final long[] board = new long[rows * columns];
+            for (int lane = 0; lane < seeds.size(); lane++) {
+                for (final Cell cell : seeds.get(lane).getCells()) {
+                    if (State.ALIVE.equals(cell.getState())) {
+                        board[((cell.getRow() + MARGIN) * columns) + cell.getColumn() + MARGIN] |= 1L << lane;
+                    }
+                }
+            }
+            record(board, true);
+        }
+
+        /**
+         * Steps all lanes until every one of them has stopped.
+         * @return generations of each lane
+         */
+        List<List<Universe>> play() {
+            final int[] lengths = new int[seeds.size()]; // 0 while the lane is still running
+            int running = seeds.size();
+            while (running > 0) {
+                record(step(boards.get(boards.size() - 1)), false);
+                final int latest = boards.size() - 1;
+                for (int lane = 0; lane < seeds.size(); lane++) {
+                    if (lengths[lane] == 0) {
+                        lengths[lane] = stopLength(lane, latest);
+                        if (lengths[lane] != 0) {
+                            running--;
+                        }
+                    }
+                }
+            }
+            final List<List<Universe>> results = new ArrayList<List<Universe>>();
+            for (int lane = 0; lane < seeds.size(); lane++) {
+                final List<Universe> generations = new ArrayList<Universe>();
+                generations.add(seeds.get(lane));
+                for (int i = 1; i < lengths[lane]; i++) {
+                    generations.add(toUniverse(i, lane));
+                }
+                results.add(generations);
+            }
+            return results;
+        }
+
+        /**
+         * Mirrors the checks of GameOfLifeService.play for a lane that has just got a new generation.
+         * @param lane
+         * @param latest number of the new generation
+         * @return count of generations kept for the lane if it stops here, 0 if it runs on
+         */
+        private int stopLength(final int lane, final int latest) {
+            for (int i = 0; i < latest; i++) {
+                if ((populations.get(i)[lane] == 0) || (latest == UniverseUtil.GENERATIONS_LIMIT)) {
+                    return latest;
+                }
+                if (same(i, latest, lane)) {
+                    return latest + 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Next generation of all lanes.
+         * @param board
+         * @return long[]
+         */
+        private long[] step(final long[] board) {
+            final long[] next = new long[board.length];
+            for (int i = 1; i < (rows - 1); i++) {
+                for (int j = 1; j < (columns - 1); j++) {
+                    final int at = (i * columns) + j;
+                    next[at] = WordLogic.next(board[at], board[at - columns - 1], board[at - columns],
+                            board[(at - columns) + 1], board[at - 1], board[at + 1], board[(at + columns) - 1],
+                            board[at + columns], board[at + columns + 1]);
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Keeps a generation with the population and bounds of each lane, visiting only ALIVE bits.
+         * @param board
+         * @param seed whether this is the seed, whose cells are compared from its own origin rather than trimmed
+         */
+        private void record(final long[] board, final boolean seed) {
+            final int[] population = new int[seeds.size()];
+            final int[][] box = new int[seeds.size()][];
+            for (int lane = 0; lane < seeds.size(); lane++) {
+                box[lane] = new int[] {Integer.MAX_VALUE, Integer.MAX_VALUE, -1, -1, 0, 0};
+            }
+            for (int at = 0; at < board.length; at++) {
+                long word = board[at];
+                while (word != 0) {
+                    final int lane = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    final int row = at / columns;
+                    final int column = at % columns;
+                    final int[] laneBox = box[lane];
+                    population[lane]++;
+                    laneBox[0] = Math.min(laneBox[0], row);
+                    laneBox[1] = Math.min(laneBox[1], column);
+                    laneBox[2] = Math.max(laneBox[2], row);
+                    laneBox[3] = Math.max(laneBox[3], column);
+                }
+            }
+            for (int lane = 0; lane < seeds.size(); lane++) {
+                box[lane][4] = seed ? MARGIN : box[lane][0];
+                box[lane][5] = seed ? MARGIN : box[lane][1];
+            }
+            boards.add(board);
+            populations.add(population);
+            bounds.add(box);
+        }
+
+        /**
+         * Checks if a lane has the same ALIVE cells, counted from the origin, in two generations. This is the
+         * equality of Universe, which compares positions of ALIVE cells only.
+         * @param first
+         * @param second
+         * @param lane
+         * @return boolean
+         */
+        private boolean same(final int first, final int second, final int lane) {
+            if (populations.get(first)[lane] != populations.get(second)[lane]) {
+                return false;
+            }
+            if (populations.get(first)[lane] == 0) {
+                return true;
+            }
+            final int[] a = bounds.get(first)[lane];
+            final int[] b = bounds.get(second)[lane];
+            for (int k = 0; k < 4; k++) {
+                if ((a[k] - a[4 + (k % 2)]) != (b[k] - b[4 + (k % 2)])) {
+                    return false;
+                }
+            }
+            final long[] boardA = boards.get(first);
+            final long[] boardB = boards.get(second);
+            final long bit = 1L << lane;
+            for (int i = 0; i <= (a[2] - a[0]); i++) {
+                final int rowA = (a[0] + i) * columns;
+                final int rowB = (b[0] + i) * columns;
+                for (int j = 0; j <= (a[3] - a[1]); j++) {
+                    if ((boardA[rowA + a[1] + j] & bit) != (boardB[rowB + b[1] + j] & bit)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Universe of one lane in one generation, trimmed to its ALIVE cells.
+         * @param generation
+         * @param lane
+         * @return Universe
+         */
+        private Universe toUniverse(final int generation, final int lane) {
+            if (populations.get(generation)[lane] == 0) {
+                return UniverseUtil.createUniverse(new char[0][0]);
+            }
+            final int[] box = bounds.get(generation)[lane];
+            final long[] board = boards.get(generation);
+            final int universeRows = (box[2] - box[0]) + 1;
+            final int universeColumns = (box[3] - box[1]) + 1;
+            final List<Cell> cells = new ArrayList<Cell>(universeRows * universeColumns);
+            for (int i = 0; i < universeRows; i++) {
+                for (int j = 0; j < universeColumns; j++) {
+                    final boolean alive = (board[((box[0] + i) * columns) + box[1] + j] & (1L << lane)) != 0;
+                    cells.add(new Cell(i, j, alive ? State.ALIVE : State.DEAD));
+                }
+            }
+            return new Universe(universeRows, universeColumns, cells);
+        }
+    }
+}
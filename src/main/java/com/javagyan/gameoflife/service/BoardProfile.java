@@ -0,0 +1,100 @@
+package com.javagyan.gameoflife.service;
+
+/**
+ * Measurements of a board that engines use to estimate how fast they would step it.
+ * @author Sanjeev Kumar
+ */
+public final class BoardProfile {
+    /**
+     * Count of rows in the board.
+     */
+    private final int rows;
+
+    /**
+     * Count of columns in the board.
+     */
+    private final int columns;
+
+    /**
+     * Count of ALIVE cells.
+     */
+    private final int population;
+
+    /**
+     * Period of the pattern if it was seen repeating, 0 otherwise.
+     */
+    private final int period;
+
+    /**
+     * Constructor.
+     *
+     * @param rows1
+     * @param columns1
+     * @param population1
+     * @param period1
+     */
+    public BoardProfile(final int rows1, final int columns1, final int population1, final int period1) {
+        rows        = rows1;
+        columns     = columns1;
+        population  = population1;
+        period      = period1;
+    }
+
+    /**
+     * gets count of rows.
+     * @return rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * gets count of columns.
+     * @return columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * gets count of cells in the board.
+     * @return area
+     */
+    public long getArea() {
+        return (long) rows * columns;
+    }
+
+    /**
+     * gets count of ALIVE cells.
+     * @return population
+     */
+    public int getPopulation() {
+        return population;
+    }
+
+    /**
+     * gets share of ALIVE cells in the board.
+     * @return density between 0 and 1
+     */
+    public double getDensity() {
+        return (getArea() == 0) ? 0 : ((double) population / getArea());
+    }
+
+    /**
+     * gets period of the pattern, 0 if it has not been seen repeating.
+     * @return period
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    /**
+     * Readable form of the profile, used when logging engine switches.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return rows + "x" + columns + " board, population " + population + String.format(", density %.3f",
+                getDensity()) + ((period > 0) ? (", period " + period) : ", no period");
+    }
+}
@@ -0,0 +1,29 @@
+package com.javagyan.gameoflife.service;
+
+/**
+ * Lets one thread ask work running in another thread to stop. The work looks at the token now and then, between row
+ * bands of a generation, and stops at the next look after cancel() is called.
+ *
+ * Thread safe.
+ * @author Sanjeev Kumar
+ */
+public final class CancellationToken {
+
+    /** Set once cancel() has been called. */
+    private volatile boolean cancelled;
+
+    /**
+     * Asks the work that holds this token to stop. Calling it again has no effect.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks if cancel() has been called.
+     * @return boolean
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
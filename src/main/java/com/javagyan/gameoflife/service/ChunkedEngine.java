@@ -0,0 +1,144 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.ChunkedUniverse;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Steps a ChunkedUniverse one chunk at a time. Every kept chunk and each of its eight neighbours is stepped, as a
+ * birth can spill one cell over the edge of a chunk. A chunk is stepped as 64 words with WordLogic, taking the halo
+ * of one cell around it from the rows and columns of the neighbouring chunks; every kept chunk is unpacked once per
+ * step however many of its neighbours read it.
+ * @author Sanjeev Kumar
+ */
+public final class ChunkedEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "chunked";
+
+    /** Cost units per cell for turning the Universe into chunks and back. */
+    private static final double CONVERSION_COST_PER_CELL = 5;
+
+    /** Cost units per chunk stepped. */
+    private static final double COST_PER_CHUNK = 6000;
+
+    /** Words of a chunk with no ALIVE cells. */
+    private static final long[] EMPTY = new long[ChunkedUniverse.CHUNK_SIZE];
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Turns the Universe into chunks, steps them and turns the result back.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        return UniverseUtil.createUniverse(step(ChunkedUniverse.of(CellSet.of(universe, 0, 0))).toCellSet());
+    }
+
+    /**
+     * Next generation of a board, at the same absolute positions.
+     * @param board
+     * @return ChunkedUniverse
+     */
+    public static ChunkedUniverse step(final ChunkedUniverse board) {
+        final Map<Long, long[]> unpacked = new HashMap<Long, long[]>();
+        final TreeSet<Long> candidates = new TreeSet<Long>();
+        for (final long key : board.getChunkKeys()) {
+            final int chunkRow = CellSet.row(key);
+            final int chunkColumn = CellSet.column(key);
+            final long[] bitmap = new long[ChunkedUniverse.CHUNK_SIZE];
+            board.getChunk(chunkRow, chunkColumn, bitmap);
+            unpacked.put(key, bitmap);
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    candidates.add(CellSet.key(chunkRow + dr, chunkColumn + dc));
+                }
+            }
+        }
+        final ChunkedUniverse next = new ChunkedUniverse();
+        final long[] result = new long[ChunkedUniverse.CHUNK_SIZE];
+        for (final Long key : candidates) {
+            final int chunkRow = CellSet.row(key);
+            final int chunkColumn = CellSet.column(key);
+            final long[] center = chunk(unpacked, chunkRow, chunkColumn);
+            final long[] west = chunk(unpacked, chunkRow, chunkColumn - 1);
+            final long[] east = chunk(unpacked, chunkRow, chunkColumn + 1);
+            final long[] north = chunk(unpacked, chunkRow - 1, chunkColumn);
+            final long[] northWest = chunk(unpacked, chunkRow - 1, chunkColumn - 1);
+            final long[] northEast = chunk(unpacked, chunkRow - 1, chunkColumn + 1);
+            final long[] south = chunk(unpacked, chunkRow + 1, chunkColumn);
+            final long[] southWest = chunk(unpacked, chunkRow + 1, chunkColumn - 1);
+            final long[] southEast = chunk(unpacked, chunkRow + 1, chunkColumn + 1);
+            final int last = ChunkedUniverse.CHUNK_SIZE - 1;
+            for (int r = 0; r <= last; r++) {
+                final long up = (r == 0) ? north[last] : center[r - 1];
+                final long upWest = (r == 0) ? northWest[last] : west[r - 1];
+                final long upEast = (r == 0) ? northEast[last] : east[r - 1];
+                final long down = (r == last) ? south[0] : center[r + 1];
+                final long downWest = (r == last) ? southWest[0] : west[r + 1];
+                final long downEast = (r == last) ? southEast[0] : east[r + 1];
+                final long word = center[r];
+                result[r] = WordLogic.next(word, fromWest(word, west[r]), fromEast(word, east[r]), up,
+                        fromWest(up, upWest), fromEast(up, upEast), down, fromWest(down, downWest),
+                        fromEast(down, downEast));
+            }
+            next.setChunk(chunkRow, chunkColumn, result);
+        }
+        return next;
+    }
+
+    /**
+     * Chunks are stepped, not cells, so the cost follows the count of chunks the board covers.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        final double chunks = ((profile.getRows() / (double) ChunkedUniverse.CHUNK_SIZE) + 2)
+                * ((profile.getColumns() / (double) ChunkedUniverse.CHUNK_SIZE) + 2);
+        return (CONVERSION_COST_PER_CELL * profile.getArea()) + (COST_PER_CHUNK * chunks);
+    }
+
+    /**
+     * Unpacked words of a chunk, EMPTY if it is not kept.
+     * @param unpacked
+     * @param chunkRow
+     * @param chunkColumn
+     * @return long[]
+     */
+    private static long[] chunk(final Map<Long, long[]> unpacked, final int chunkRow, final int chunkColumn) {
+        final long[] bitmap = unpacked.get(CellSet.key(chunkRow, chunkColumn));
+        return (bitmap == null) ? EMPTY : bitmap;
+    }
+
+    /**
+     * Lines up the west neighbour of every cell of a row with the cell.
+     * @param word
+     * @param west same row of the chunk to the west
+     * @return long
+     */
+    private static long fromWest(final long word, final long west) {
+        return (word << 1) | (west >>> (ChunkedUniverse.CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Lines up the east neighbour of every cell of a row with the cell.
+     * @param word
+     * @param east same row of the chunk to the east
+     * @return long
+     */
+    private static long fromEast(final long word, final long east) {
+        return (word >>> 1) | (east << (ChunkedUniverse.CHUNK_SIZE - 1));
+    }
+}
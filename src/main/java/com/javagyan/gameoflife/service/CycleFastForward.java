@@ -0,0 +1,414 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.Region;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Jumps to far away generations of patterns that settle into a cycle. Generations are stepped with SparseEngine until
+ * one of them has the same shape as an earlier one, the same test play(seed) uses to stop. From then on generation N
+ * is a copy of one phase of the cycle, moved by as many whole cycles as fit, so that spaceships end up in the right
+ * place.
+ *
+ * When the board as a whole does not repeat, the per object mode splits it into objects (groups of cells closer than
+ * three cells to each other, which can not affect each other in the next tick) and finds the cycle of each object on
+ * its own. The split is only used if stepping the whole board agrees with the objects until all of them are cycling,
+ * and if the boxes the objects sweep while moving at their own speeds never come within three cells of each other up
+ * to generation N.
+ * @author Sanjeev Kumar
+ */
+public final class CycleFastForward {
+
+    /** Default count of generations searched for a cycle. */
+    public static final int DEFAULT_SEARCH_LIMIT = 1024;
+
+    /** Objects closer than this can affect each other in the next tick. */
+    private static final int SEPARATION = 3;
+
+    /** Count of generations searched for a cycle. */
+    private final int searchLimit;
+
+    /**
+     * Fast forward with the default search limit.
+     */
+    public CycleFastForward() {
+        this(DEFAULT_SEARCH_LIMIT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param searchLimit count of generations searched for a cycle
+     */
+    public CycleFastForward(final int searchLimit) {
+        this.searchLimit = searchLimit;
+    }
+
+    /**
+     * Generation N of the seed, the seed being generation 0.
+     * @param seed
+     * @param generation
+     * @param perObject whether to try cycles of separate objects when the whole board does not repeat
+     * @return Universe
+     */
+    public Universe generationAt(final Universe seed, final long generation, final boolean perObject) {
+        return UniverseUtil.createUniverse(generationAt(CellSet.of(seed, 0, 0), generation, perObject));
+    }
+
+    /**
+     * Generation N of the seed at its absolute position, the seed being generation 0.
+     * @param seed
+     * @param generation
+     * @param perObject whether to try cycles of separate objects when the whole board does not repeat
+     * @return CellSet
+     * @throws IllegalStateException when no cycle is found and N is beyond the search limit
+     */
+    public CellSet generationAt(final CellSet seed, final long generation, final boolean perObject) {
+        final Cycle cycle = search(seed);
+        if ((cycle.period > 0) || (generation < cycle.generations.size())) {
+            return cycle.at(generation);
+        }
+        if (perObject) {
+            CellSet board = seed;
+            long at = 0;
+            for (long start = 0; start <= searchLimit; start = Math.max(1, start * 2)) {
+                while (at < start) {
+                    board = SparseEngine.step(board);
+                    at++;
+                }
+                final CellSet result = objectsAt(board, generation - start);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        throw new IllegalStateException("No cycle found within " + searchLimit + " generations");
+    }
+
+    /**
+     * Cycle the seed settles into, null if none is found within the search limit.
+     * @param seed
+     * @return Cycle
+     */
+    public Cycle findCycle(final CellSet seed) {
+        final Cycle cycle = search(seed);
+        return (cycle.period > 0) ? cycle : null;
+    }
+
+    /**
+     * Steps the seed until a shape repeats or the search limit is reached.
+     * @param seed
+     * @return Cycle, with a period of 0 if none was found
+     */
+    private Cycle search(final CellSet seed) {
+        final Map<CellSet, Integer> seen = new HashMap<CellSet, Integer>();
+        final List<CellSet> generations = new ArrayList<CellSet>();
+        CellSet current = seed;
+        for (int i = 0; i <= searchLimit; i++) {
+            final Region bounds = current.getBounds();
+            final CellSet shape = current.translate(-bounds.getTop(), -bounds.getLeft());
+            final Integer start = seen.get(shape);
+            if (start != null) {
+                final Region startBounds = generations.get(start).getBounds();
+                return new Cycle(generations, start, i - start, bounds.getTop() - startBounds.getTop(),
+                        bounds.getLeft() - startBounds.getLeft());
+            }
+            seen.put(shape, i);
+            generations.add(current);
+            current = SparseEngine.step(current);
+        }
+        return new Cycle(generations, 0, 0, 0, 0);
+    }
+
+    /**
+     * Generation N of a board from the cycles of its objects, null if the objects can not be trusted to stay apart.
+     * @param board
+     * @param generation count of generations after the board
+     * @return CellSet
+     */
+    private CellSet objectsAt(final CellSet board, final long generation) {
+        final List<CellSet> objects = split(board);
+        final List<Cycle> cycles = new ArrayList<Cycle>();
+        int settled = 0;
+        for (final CellSet object : objects) {
+            final Cycle cycle = findCycle(object);
+            if (cycle == null) {
+                return null;
+            }
+            cycles.add(cycle);
+            settled = Math.max(settled, cycle.start);
+        }
+        if (generation <= settled) {
+            return null;
+        }
+        CellSet whole = board;
+        for (int i = 1; i <= settled; i++) {
+            whole = SparseEngine.step(whole);
+            if (!whole.equals(merge(cycles, i))) {
+                return null; // the objects affect each other before they settle
+            }
+        }
+        final Region[] boxes = new Region[cycles.size()];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = sweptBox(cycles.get(i), settled);
+        }
+        final double horizon = generation - settled;
+        for (int i = 0; i < boxes.length; i++) {
+            for (int j = i + 1; j < boxes.length; j++) {
+                if (mayMeet(boxes[i], cycles.get(i), boxes[j], cycles.get(j), horizon)) {
+                    return null;
+                }
+            }
+        }
+        return merge(cycles, generation);
+    }
+
+    /**
+     * Union of the bounds of one full cycle of an object, starting at the given generation.
+     * @param cycle
+     * @param from
+     * @return Region
+     */
+    private static Region sweptBox(final Cycle cycle, final int from) {
+        int top = Integer.MAX_VALUE;
+        int left = Integer.MAX_VALUE;
+        int bottom = Integer.MIN_VALUE;
+        int right = Integer.MIN_VALUE;
+        for (int i = 0; i < cycle.period; i++) {
+            final Region bounds = cycle.at(from + i).getBounds();
+            if (!bounds.isEmpty()) {
+                top = Math.min(top, bounds.getTop());
+                left = Math.min(left, bounds.getLeft());
+                bottom = Math.max(bottom, bounds.getBottom());
+                right = Math.max(right, bounds.getRight());
+            }
+        }
+        return (bottom == Integer.MIN_VALUE) ? null : new Region(top, left, bottom - top, right - left);
+    }
+
+    /**
+     * Checks if two objects may come closer than SEPARATION within the horizon. After t more generations an object
+     * has moved floor(t / period) whole cycles, which lies within one cycle of t / period; so the box is widened by
+     * one cycle of movement and treated as moving at constant speed, which makes each edge distance linear in t.
+     * @param a
+     * @param cycleA
+     * @param b
+     * @param cycleB
+     * @param horizon
+     * @return boolean
+     */
+    private static boolean mayMeet(final Region a, final Cycle cycleA, final Region b, final Cycle cycleB,
+            final double horizon) {
+        if ((a == null) || (b == null)) {
+            return false; // an object that died out can not meet anything
+        }
+        final double rowSpeedA = (double) cycleA.rowShift / cycleA.period;
+        final double rowSpeedB = (double) cycleB.rowShift / cycleB.period;
+        final double columnSpeedA = (double) cycleA.columnShift / cycleA.period;
+        final double columnSpeedB = (double) cycleB.columnShift / cycleB.period;
+        final int rowSlackA = Math.abs(cycleA.rowShift);
+        final int rowSlackB = Math.abs(cycleB.rowShift);
+        final int columnSlackA = Math.abs(cycleA.columnShift);
+        final int columnSlackB = Math.abs(cycleB.columnShift);
+
+        double from = 0;
+        double to = horizon;
+        final double[][] gaps = {
+            {(b.getTop() - rowSlackB) - (a.getBottom() - 1 + rowSlackA), rowSpeedB - rowSpeedA},
+            {(a.getTop() - rowSlackA) - (b.getBottom() - 1 + rowSlackB), rowSpeedA - rowSpeedB},
+            {(b.getLeft() - columnSlackB) - (a.getRight() - 1 + columnSlackA), columnSpeedB - columnSpeedA},
+            {(a.getLeft() - columnSlackA) - (b.getRight() - 1 + columnSlackB), columnSpeedA - columnSpeedB}};
+        for (final double[] gap : gaps) {
+            // the objects are too close while every gap(t) = gap[0] + gap[1] * t is below SEPARATION
+            if (gap[1] == 0) {
+                if (gap[0] >= SEPARATION) {
+                    return false;
+                }
+            } else if (gap[1] > 0) {
+                to = Math.min(to, (SEPARATION - gap[0]) / gap[1]);
+            } else {
+                from = Math.max(from, (SEPARATION - gap[0]) / gap[1]);
+            }
+        }
+        return from <= to;
+    }
+
+    /**
+     * All objects at the given generation.
+     * @param cycles
+     * @param generation
+     * @return CellSet
+     */
+    private static CellSet merge(final List<Cycle> cycles, final long generation) {
+        final List<CellSet> parts = new ArrayList<CellSet>();
+        int size = 0;
+        for (final Cycle cycle : cycles) {
+            final CellSet part = cycle.at(generation);
+            parts.add(part);
+            size += part.size();
+        }
+        final long[] keys = new long[size];
+        int count = 0;
+        for (final CellSet part : parts) {
+            System.arraycopy(part.getKeys(), 0, keys, count, part.size());
+            count += part.size();
+        }
+        Arrays.sort(keys);
+        return new CellSet(keys, size);
+    }
+
+    /**
+     * Splits the board into groups of cells that are closer than SEPARATION to each other, using union find.
+     * @param board
+     * @return List<CellSet>
+     */
+    private static List<CellSet> split(final CellSet board) {
+        final int size = board.size();
+        final int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        final long[] keys = board.getKeys();
+        for (int i = 0; i < size; i++) {
+            final int row = CellSet.row(keys[i]);
+            final int column = CellSet.column(keys[i]);
+            for (int r = row; r < (row + SEPARATION); r++) { // cells before this one are joined from their side
+                for (int c = column - (SEPARATION - 1); c < (column + SEPARATION); c++) {
+                    final int j = Arrays.binarySearch(keys, 0, size, CellSet.key(r, c));
+                    if (j > i) {
+                        parent[find(parent, i)] = find(parent, j);
+                    }
+                }
+            }
+        }
+        final Map<Integer, List<Long>> groups = new HashMap<Integer, List<Long>>();
+        final List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < size; i++) {
+            final int root = find(parent, i);
+            List<Long> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<Long>();
+                groups.put(root, group);
+                order.add(root);
+            }
+            group.add(keys[i]);
+        }
+        final List<CellSet> objects = new ArrayList<CellSet>();
+        for (final Integer root : order) {
+            final List<Long> group = groups.get(root);
+            final long[] groupKeys = new long[group.size()];
+            for (int i = 0; i < groupKeys.length; i++) {
+                groupKeys[i] = group.get(i);
+            }
+            objects.add(new CellSet(groupKeys, groupKeys.length));
+        }
+        return objects;
+    }
+
+    /**
+     * Root of a union find tree, halving the path on the way.
+     * @param parent
+     * @param index
+     * @return int
+     */
+    private static int find(final int[] parent, final int index) {
+        int i = index;
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Generations of a pattern up to the point where it starts repeating, and the way it repeats.
+     */
+    public static final class Cycle {
+        /** generations from the seed up to the end of the first cycle. */
+        private final List<CellSet> generations;
+
+        /** first generation of the cycle. */
+        private final int start;
+
+        /** count of generations in the cycle, 0 if no cycle was found. */
+        private final int period;
+
+        /** rows moved in one cycle. */
+        private final int rowShift;
+
+        /** columns moved in one cycle. */
+        private final int columnShift;
+
+        /**
+         * Constructor.
+         * @param generations
+         * @param start
+         * @param period
+         * @param rowShift
+         * @param columnShift
+         */
+        Cycle(final List<CellSet> generations, final int start, final int period, final int rowShift,
+                final int columnShift) {
+            this.generations = generations;
+            this.start = start;
+            this.period = period;
+            this.rowShift = rowShift;
+            this.columnShift = columnShift;
+        }
+
+        /**
+         * gets first generation of the cycle.
+         * @return start
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * gets count of generations in the cycle.
+         * @return period
+         */
+        public int getPeriod() {
+            return period;
+        }
+
+        /**
+         * gets rows moved in one cycle, non zero for spaceships.
+         * @return rowShift
+         */
+        public int getRowShift() {
+            return rowShift;
+        }
+
+        /**
+         * gets columns moved in one cycle, non zero for spaceships.
+         * @return columnShift
+         */
+        public int getColumnShift() {
+            return columnShift;
+        }
+
+        /**
+         * Generation N at its absolute position, found without stepping.
+         * @param generation
+         * @return CellSet
+         * @throws ArithmeticException when the position does not fit in an int
+         */
+        public CellSet at(final long generation) {
+            if (generation < generations.size()) {
+                return generations.get((int) generation);
+            }
+            final long cycles = (generation - start) / period;
+            final int phase = (int) ((generation - start) % period);
+            return generations.get(start + phase).translate(Math.toIntExact(Math.multiplyExact(cycles, rowShift)),
+                    Math.toIntExact(Math.multiplyExact(cycles, columnShift)));
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.javagyan.gameoflife.service;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Region;
 import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.GenerationHistory;
 import com.javagyan.gameoflife.util.UniverseUtil;
 
 /**
@@ -13,6 +20,24 @@ import com.javagyan.gameoflife.util.UniverseUtil;
  */
 public class GameOfLifeService {
 
+    /** Engine that generates the next generation, null to use the algorithm of this class. */
+    private final LifeEngine engine;
+
+    /**
+     * Service using its own algorithm.
+     */
+    public GameOfLifeService() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     * @param engine engine that generates the next generation, null to use the algorithm of this class
+     */
+    public GameOfLifeService(final LifeEngine engine) {
+        this.engine = engine;
+    }
+
     /**
      * Add a row on top if universe has the ability to expand on left.
      * @param finalInputArray
@@ -189,6 +214,149 @@ public class GameOfLifeService {
         return play(list, seed);
     }
 
+    /**
+     * Plays the seed within a budget. With no limit reached the generations are those of play(seed) without its limit
+     * of 10: the play goes on until the pattern dies out or repeats an earlier generation. Otherwise the play stops at
+     * the first check after the budget runs out, between generations or between row bands of a generation, and the
+     * generations finished so far are returned with the reason.
+     *
+     * Generations are stepped on packed grids with PackedEngine whatever the engine of this service, as the budget is
+     * checked inside the stepping. Each one is trimmed grid to grid, and a Universe is built only for the result. A
+     * generation whose stepping has finished is always kept.
+     * @param seed
+     * @param budget
+     * @return PlayResult
+     */
+    public final PlayResult play(final Universe seed, final PlayBudget budget) {
+        return play(seed, budget, null);
+    }
+
+    /**
+     * Same as play(seed, budget), feeding every generation to the tracker so that the events of its objects can be
+     * read from tracker.getEvents() alongside the generations. The seed is placed at 0,0, and the births and deaths of
+     * each generation are found from the words of the packed grids it is stepped between.
+     * @param seed
+     * @param budget
+     * @param tracker null for no tracking
+     * @return PlayResult
+     */
+    public final PlayResult play(final Universe seed, final PlayBudget budget, final ObjectTracker tracker) {
+        final List<Universe> generations = new ArrayList<Universe>();
+        generations.add(seed);
+        if (tracker != null) {
+            tracker.start(seed);
+        }
+        if (seed.getAliveCells().size() == 0) {
+            return new PlayResult(generations, PlayResult.StopReason.COMPLETED);
+        }
+        final Set<PackedGrid> seen = new HashSet<PackedGrid>();
+        PackedGrid grid = UniverseUtil.convertToPackedGrid(seed);
+        // generations are trimmed, and like play(seed) compares them with the seed as given, dead rows and columns
+        // before its cells count while those after them do not
+        final Region seedBounds = grid.getBounds();
+        seen.add(grid.crop(new Region(0, 0, seedBounds.getBottom(), seedBounds.getRight())));
+        int top = 0; // absolute position of cell 0,0 of the grid
+        int left = 0;
+        while (true) {
+            PlayResult.StopReason reason = budget.check();
+            if ((reason == null) && ((generations.size() - 1) >= budget.getMaxGenerations())) {
+                reason = PlayResult.StopReason.GENERATION_BUDGET;
+            }
+            final PackedGrid stepped = (reason == null) ? PackedEngine.step(grid, budget) : null;
+            if (stepped == null) {
+                return new PlayResult(generations, (reason == null) ? budget.check() : reason);
+            }
+            final Region bounds = stepped.getBounds();
+            final PackedGrid next = bounds.isEmpty() ? stepped : stepped.crop(bounds);
+            generations.add(UniverseUtil.createUniverse(next));
+            if (tracker != null) {
+                final List<Long> births = new ArrayList<Long>();
+                final List<Long> deaths = new ArrayList<Long>();
+                changes(grid, stepped, top - 1, left - 1, births, deaths);
+                tracker.advance(births, deaths);
+            }
+            if (bounds.isEmpty() || !seen.add(next)) {
+                return new PlayResult(generations, PlayResult.StopReason.COMPLETED);
+            }
+            grid = next;
+            top += bounds.getTop() - 1;
+            left += bounds.getLeft() - 1;
+        }
+    }
+
+    /**
+     * Collects the cells that changed from a grid to its next generation as given by PackedEngine, one cell larger on
+     * every side, comparing them a word at a time.
+     * @param grid
+     * @param stepped
+     * @param top absolute row of row 0 of the stepped grid
+     * @param left absolute column of column 0 of the stepped grid
+     * @param births keys of the cells born, added to
+     * @param deaths keys of the cells that died, added to
+     */
+    private static void changes(final PackedGrid grid, final PackedGrid stepped, final int top, final int left,
+            final List<Long> births, final List<Long> deaths) {
+        final long[] words = stepped.getWords();
+        final int wordsPerRow = stepped.getWordsPerRow();
+        for (int i = 0; i < stepped.getRows(); i++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                final long now = words[(i * wordsPerRow) + w];
+                final long before = grid.getBits(i - 1, (w * PackedGrid.WORD_SIZE) - 1);
+                long changed = now ^ before;
+                while (changed != 0) {
+                    final long bit = changed & -changed;
+                    final long key = CellSet.key(top + i, left + (w * PackedGrid.WORD_SIZE)
+                            + Long.numberOfTrailingZeros(bit));
+                    if ((now & bit) != 0) {
+                        births.add(key);
+                    } else {
+                        deaths.add(key);
+                    }
+                    changed ^= bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the seed and the given count of generations after it in the history. Unlike play(seed) there is no limit
+     * on the count and no check for repeating patterns, and only the compressed history is kept in memory.
+     * @param seed
+     * @param generations
+     * @param history
+     * @throws IOException when the history can not spill to disk
+     */
+    public final void play(final Universe seed, final int generations, final GenerationHistory history)
+            throws IOException {
+        Universe universe = seed;
+        history.add(universe);
+        for (int i = 0; i < generations; i++) {
+            universe = nextGeneration(universe);
+            history.add(universe);
+        }
+    }
+
+    /**
+     * Returns generation N of the seed, the seed being generation 0. Instead of stepping N times, the pattern is played
+     * until it repeats, on the whole or as separate objects, and generation N is taken from the cycle.
+     * @param seed
+     * @param generation
+     * @return Universe
+     * @throws IllegalStateException when the pattern does not settle within CycleFastForward.DEFAULT_SEARCH_LIMIT
+     */
+    public final Universe generationAt(final Universe seed, final long generation) {
+        return new CycleFastForward().generationAt(seed, generation, true);
+    }
+
+    /**
+     * Generates the next generation of the Universe with the engine of this service.
+     * @param universe
+     * @return Universe
+     */
+    public final Universe nextGeneration(final Universe universe) {
+        return (engine == null) ? generateNextGeneration(universe) : engine.nextGeneration(universe);
+    }
+
     /**
      * Faster version of the logic to generate next generation. It deals with Array. Core logic of the Game of life. -
      * Before calculating for new generation check if the Universe needs to expand its area - apply business rules 1 Any
@@ -266,7 +434,7 @@ public class GameOfLifeService {
      * @return List<Universe>
      */
     private List<Universe> play(final List<Universe> generations, final Universe genNext) {
-        final Universe uni = generateNextGeneration(genNext);
+        final Universe uni = nextGeneration(genNext);
         for (final Universe universe : generations) {
             if ((universe.getAliveCells().size() == 0) || (generations.size() == UniverseUtil.GENERATIONS_LIMIT)) {
                 return generations;
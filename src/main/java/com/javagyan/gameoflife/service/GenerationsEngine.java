@@ -0,0 +1,135 @@
+package com.javagyan.gameoflife.service;
+
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.StatePlanes;
+
+/**
+ * Steps boards of a Generations rule 64 cells at a time, working on the bit planes of the states. The ALIVE cells are
+ * found with a few word operations on the planes, their neighbours summed into a four bit counter and the counts of
+ * the rule picked out as masks; dying cells then move one state on with a ripple carry over the planes.
+ *
+ * The two state Universe and its engines are left as they are; this engine works on StatePlanes only.
+ * @author Sanjeev Kumar
+ */
+public final class GenerationsEngine {
+
+    /**
+     * Rule applied to the boards.
+     */
+    private final GenerationsRule rule;
+
+    /**
+     * Constructor.
+     *
+     * @param rule
+     */
+    public GenerationsEngine(final GenerationsRule rule) {
+        this.rule = rule;
+    }
+
+    /**
+     * Steps the board and trims the result to the cells not in state 0.
+     * @param board
+     * @return StatePlanes
+     */
+    public StatePlanes nextGeneration(final StatePlanes board) {
+        return step(board, rule).trim();
+    }
+
+    /**
+     * Next generation of a board, one cell larger on every side so that cell (r, c) of the result is cell
+     * (r - 1, c - 1) of the input.
+     * @param board
+     * @param rule
+     * @return StatePlanes
+     */
+    public static StatePlanes step(final StatePlanes board, final GenerationsRule rule) {
+        if (board.getStates() != rule.getStates()) {
+            throw new IllegalArgumentException("Board has " + board.getStates() + " states, rule " + rule + " has "
+                    + rule.getStates());
+        }
+        final int planeCount = board.getPlaneCount();
+        final StatePlanes next = new StatePlanes(board.getRows() + 2, board.getColumns() + 2, board.getStates());
+        final PackedGrid alive = board.getAlive();
+        final PackedGrid first = next.getPlane(0);
+        final int wordsPerRow = first.getWordsPerRow();
+        final long lastWordMask = first.getLastWordMask();
+        final long[] own = new long[planeCount];
+        for (int i = 0; i < first.getRows(); i++) {
+            final int row = i - 1;
+            for (int w = 0; w < wordsPerRow; w++) {
+                final int column = (w * PackedGrid.WORD_SIZE) - 1;
+                long dead = -1L;
+                for (int k = 0; k < planeCount; k++) {
+                    own[k] = board.getPlane(k).getBits(row, column);
+                    dead &= ~own[k];
+                }
+                final long center = alive.getBits(row, column);
+
+                // four bit neighbour count (c0, c1, c2, c3)
+                long c0 = 0;
+                long c1 = 0;
+                long c2 = 0;
+                long c3 = 0;
+                for (int dr = -1; dr <= 1; dr++) {
+                    for (int dc = -1; dc <= 1; dc++) {
+                        if ((dr != 0) || (dc != 0)) {
+                            final long n = alive.getBits(row + dr, column + dc);
+                            long carry = c0 & n;
+                            c0 ^= n;
+                            final long carry1 = c1 & carry;
+                            c1 ^= carry;
+                            carry = c2 & carry1;
+                            c2 ^= carry1;
+                            c3 |= carry;
+                        }
+                    }
+                }
+                final long born = dead & matching(rule.getBirth(), c0, c1, c2, c3);
+                final long stays = center & matching(rule.getSurvival(), c0, c1, c2, c3);
+                final long advance = ~dead & ~stays;
+
+                // state + 1 over the planes, back to 0 after the last state
+                long carry = -1L;
+                long wrap = -1L;
+                for (int k = 0; k < planeCount; k++) {
+                    final long bit = own[k] ^ carry;
+                    carry &= own[k];
+                    own[k] = bit;
+                    wrap &= (((rule.getStates() >> k) & 1) != 0) ? bit : ~bit;
+                }
+                final long keep = advance & ~wrap;
+                final long mask = (w == (wordsPerRow - 1)) ? lastWordMask : -1L;
+                final int at = (i * wordsPerRow) + w;
+                for (int k = 0; k < planeCount; k++) {
+                    long bit = keep & own[k];
+                    if (k == 0) {
+                        bit |= born | stays;
+                    }
+                    next.getPlane(k).getWords()[at] = bit & mask;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Cells whose neighbour count is one of the counts of the mask.
+     * @param counts bit n set for count n
+     * @param c0
+     * @param c1
+     * @param c2
+     * @param c3
+     * @return long
+     */
+    private static long matching(final int counts, final long c0, final long c1, final long c2, final long c3) {
+        long result = 0;
+        for (int count = 0; count <= 8; count++) {
+            if (((counts >> count) & 1) != 0) {
+                result |= (((count & 1) != 0) ? c0 : ~c0) & (((count & 2) != 0) ? c1 : ~c1)
+                        & (((count & 4) != 0) ? c2 : ~c2) & (((count & 8) != 0) ? c3 : ~c3);
+            }
+        }
+        return result;
+    }
+}
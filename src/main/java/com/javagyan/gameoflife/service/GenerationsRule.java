@@ -0,0 +1,158 @@
+package com.javagyan.gameoflife.service;
+
+/**
+ * Rule of the Generations family, written B/S/C: an ALIVE cell with a neighbour count in S stays ALIVE, a DEAD cell
+ * with a count in B is born, and an ALIVE cell that does not survive goes through C - 2 dying states before it is
+ * DEAD. Dying cells can not be born again and do not count as neighbours. With C = 2 there are no dying states and the
+ * rule is an ordinary two state rule; B3/S23/C2 is the rule of this program.
+ *
+ * States are numbered 0 for DEAD, 1 for ALIVE and 2 to C - 1 for dying.
+ * @author Sanjeev Kumar
+ */
+public final class GenerationsRule {
+
+    /** Largest supported count of states. */
+    public static final int MAX_STATES = 256;
+
+    /**
+     * Bit n set if a DEAD cell with n ALIVE neighbours is born.
+     */
+    private final int birth;
+
+    /**
+     * Bit n set if an ALIVE cell with n ALIVE neighbours stays ALIVE.
+     */
+    private final int survival;
+
+    /**
+     * Count of states.
+     */
+    private final int states;
+
+    /**
+     * Constructor.
+     *
+     * @param birth1 bit n set if a DEAD cell with n ALIVE neighbours is born, n at least 1
+     * @param survival1 bit n set if an ALIVE cell with n ALIVE neighbours stays ALIVE
+     * @param states1 count of states, from 2 to MAX_STATES
+     */
+    public GenerationsRule(final int birth1, final int survival1, final int states1) {
+        if ((states1 < 2) || (states1 > MAX_STATES)) {
+            throw new IllegalArgumentException("Count of states must be between 2 and " + MAX_STATES + ": " + states1);
+        }
+        if (((birth1 | survival1) & ~0x1FF) != 0) {
+            throw new IllegalArgumentException("Neighbour counts must be between 0 and 8");
+        }
+        if ((birth1 & 1) != 0) {
+            throw new IllegalArgumentException("Birth with no neighbours would fill the infinite plane");
+        }
+        birth       = birth1;
+        survival    = survival1;
+        states      = states1;
+    }
+
+    /**
+     * Parses a rule written as B/S/C, for example B2/S/C3 for Brian's Brain or B2/S345/C4 for Star Wars.
+     * @param rule
+     * @return GenerationsRule
+     */
+    public static GenerationsRule parse(final String rule) {
+        final String[] parts = rule.trim().toUpperCase().split("/");
+        if ((parts.length != 3) || !parts[0].startsWith("B") || !parts[1].startsWith("S")
+                || !parts[2].startsWith("C")) {
+            throw new IllegalArgumentException("Rule must be written as B.../S.../C...: " + rule);
+        }
+        try {
+            return new GenerationsRule(counts(parts[0].substring(1)), counts(parts[1].substring(1)),
+                    Integer.parseInt(parts[2].substring(1)));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Rule must be written as B.../S.../C...: " + rule, e);
+        }
+    }
+
+    /**
+     * The rules of this program, B3/S23/C2.
+     * @return GenerationsRule
+     */
+    public static GenerationsRule conway() {
+        return parse("B3/S23/C2");
+    }
+
+    /**
+     * Bit n set for every digit n of the text.
+     * @param digits
+     * @return int
+     */
+    private static int counts(final String digits) {
+        int mask = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            final int count = Character.digit(digits.charAt(i), 10);
+            if ((count < 0) || (count > 8)) {
+                throw new NumberFormatException("Not a neighbour count: " + digits.charAt(i));
+            }
+            mask |= 1 << count;
+        }
+        return mask;
+    }
+
+    /**
+     * Bit n set if a DEAD cell with n ALIVE neighbours is born.
+     * @return int
+     */
+    public int getBirth() {
+        return birth;
+    }
+
+    /**
+     * Bit n set if an ALIVE cell with n ALIVE neighbours stays ALIVE.
+     * @return int
+     */
+    public int getSurvival() {
+        return survival;
+    }
+
+    /**
+     * Count of states.
+     * @return int
+     */
+    public int getStates() {
+        return states;
+    }
+
+    /**
+     * Next state of a cell.
+     * @param state
+     * @param neighbours count of ALIVE neighbours, not counting the cell itself
+     * @return int
+     */
+    public int nextState(final int state, final int neighbours) {
+        if (state == 0) {
+            return ((birth >> neighbours) & 1);
+        }
+        if ((state == 1) && (((survival >> neighbours) & 1) != 0)) {
+            return 1;
+        }
+        return (state + 1) % states;
+    }
+
+    /**
+     * Readable form of the rule, in B/S/C notation.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        final StringBuilder text = new StringBuilder("B");
+        for (int count = 0; count <= 8; count++) {
+            if (((birth >> count) & 1) != 0) {
+                text.append(count);
+            }
+        }
+        text.append("/S");
+        for (int count = 0; count <= 8; count++) {
+            if (((survival >> count) & 1) != 0) {
+                text.append(count);
+            }
+        }
+        return text.append("/C").append(states).toString();
+    }
+}
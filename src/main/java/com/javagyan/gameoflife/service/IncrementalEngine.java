@@ -0,0 +1,387 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.State;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Keeps a count of ALIVE neighbours for every cell between ticks instead of counting them again each time. A tick only
+ * looks at cells that were born or died in the previous tick and their neighbours, which are exactly the cells whose
+ * state or count may have changed; each birth or death then adds or removes one from the counts of its eight
+ * neighbours. On boards where little changes, the work follows the changes rather than the size of the board.
+ *
+ * The state is kept between calls as long as each call gets the Universe returned by the previous one; any other
+ * Universe starts over with a full count. The ALIVE cells are also kept in a list, so that the Universe to return is
+ * built from them and the bounds they span rather than from the whole grid. The grid keeps at least two dead cells
+ * around every ALIVE cell; when a birth comes closer to its edge the grid is rebuilt around the ALIVE cells with a
+ * margin of half the width of the pattern, so a moving pattern is followed by a grid of bounded size and a growing
+ * one is rebuilt only after it has spread by half its width again.
+ *
+ * Not thread safe.
+ * @author Sanjeev Kumar
+ */
+public final class IncrementalEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "incremental";
+
+    /** Fewest dead cells added around the board when the grid is built or rebuilt. */
+    private static final int MARGIN = 8;
+
+    /** Closest an ALIVE cell may get to the edge of the grid. */
+    private static final int EDGE = 2;
+
+    /** Cost units per cell for building the Universe to return. */
+    private static final double CONVERSION_COST_PER_CELL = 3;
+
+    /** Cost units per cell looked at in a tick. */
+    private static final double COST_PER_CANDIDATE = 10;
+
+    /** Rows of the grid. */
+    private int rows;
+
+    /** Columns of the grid. */
+    private int columns;
+
+    /** 1 for ALIVE cells, one byte per cell. */
+    private byte[] alive;
+
+    /** Count of ALIVE neighbours, one byte per cell. */
+    private byte[] counts;
+
+    /** Tick in which each cell was last taken as a candidate, to take it only once. */
+    private int[] seen;
+
+    /** Position of each ALIVE cell in live, plus one; 0 for DEAD cells. */
+    private int[] slot;
+
+    /** ALIVE cells, in no particular order. */
+    private int[] live = new int[0];
+
+    /** Count of entries in live. */
+    private int liveCount;
+
+    /** Cells that were born or died in the last tick. */
+    private int[] changed = new int[0];
+
+    /** Count of entries in changed. */
+    private int changedCount;
+
+    /** Count of ticks so far. */
+    private int tick;
+
+    /** Universe returned by the last call. */
+    private Universe last;
+
+    /** Cells looked at in the last tick. */
+    private int lastCandidates;
+
+    /** Neighbour counts changed in the last tick. */
+    private int lastCounterUpdates;
+
+    /** Neighbour counts changed since the engine was created. */
+    private long totalCounterUpdates;
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Steps the board, carrying on from the previous call if the Universe is the one it returned.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        tick++;
+        final int[] previous;
+        final int previousCount;
+        if (universe != last) {
+            load(universe);
+            previous = Arrays.copyOf(live, liveCount);
+            previousCount = liveCount;
+        } else {
+            previous = changed;
+            previousCount = changedCount;
+        }
+        changed = new int[Math.max(16, previousCount * 2)];
+        changedCount = 0;
+        lastCandidates = 0;
+        for (int k = 0; k < previousCount; k++) {
+            final int cell = previous[k];
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    final int neighbour = cell + (dr * columns) + dc;
+                    if (seen[neighbour] != tick) {
+                        seen[neighbour] = tick;
+                        consider(neighbour);
+                    }
+                }
+            }
+        }
+        apply();
+        last = toUniverse();
+        return last;
+    }
+
+    /**
+     * Cost follows the population, as a stand in for the count of changes, plus building the Universe.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        return (CONVERSION_COST_PER_CELL * profile.getArea()) + (COST_PER_CANDIDATE * 9.0 * profile.getPopulation());
+    }
+
+    /**
+     * Cells looked at in the last tick.
+     * @return int
+     */
+    public int getLastCandidates() {
+        return lastCandidates;
+    }
+
+    /**
+     * Cells that were born or died in the last tick.
+     * @return int
+     */
+    public int getLastChanges() {
+        return changedCount;
+    }
+
+    /**
+     * Neighbour counts changed in the last tick.
+     * @return int
+     */
+    public int getLastCounterUpdates() {
+        return lastCounterUpdates;
+    }
+
+    /**
+     * Neighbour counts changed since the engine was created.
+     * @return long
+     */
+    public long getTotalCounterUpdates() {
+        return totalCounterUpdates;
+    }
+
+    /**
+     * Count of cells of the grid, ALIVE or DEAD, kept between ticks.
+     * @return int
+     */
+    public int getGridArea() {
+        return rows * columns;
+    }
+
+    /**
+     * Applies the rules to one cell and records it if its state changes.
+     * @param cell
+     */
+    private void consider(final int cell) {
+        lastCandidates++;
+        final int count = counts[cell];
+        final boolean next = (alive[cell] != 0)
+                ? ((count >= UniverseUtil.LONELILESS_LIMIT) && (count <= UniverseUtil.OVER_CROWDING_LIMIT))
+                : (count == UniverseUtil.BRING_TO_LIFE_COUNT);
+        if (next != (alive[cell] != 0)) {
+            if (changedCount == changed.length) {
+                changed = Arrays.copyOf(changed, Math.max(16, changedCount * 2));
+            }
+            changed[changedCount++] = cell;
+        }
+    }
+
+    /**
+     * Flips the changed cells and updates the counts of their neighbours, rebuilding the grid if a birth came too close
+     * to its edge.
+     */
+    private void apply() {
+        lastCounterUpdates = 0;
+        boolean nearEdge = false;
+        for (int k = 0; k < changedCount; k++) {
+            final int cell = changed[k];
+            final int delta = (alive[cell] == 0) ? 1 : -1;
+            alive[cell] ^= 1;
+            if (delta > 0) {
+                addLive(cell);
+            } else {
+                removeLive(cell);
+            }
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if ((dr != 0) || (dc != 0)) {
+                        counts[cell + (dr * columns) + dc] += delta;
+                    }
+                }
+            }
+            lastCounterUpdates += 8;
+            if (delta > 0) {
+                final int row = cell / columns;
+                final int column = cell % columns;
+                nearEdge |= (row < EDGE) || (row >= (rows - EDGE)) || (column < EDGE) || (column >= (columns - EDGE));
+            }
+        }
+        totalCounterUpdates += lastCounterUpdates;
+        if (nearEdge) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Adds a cell to the list of ALIVE cells.
+     * @param cell
+     */
+    private void addLive(final int cell) {
+        if (liveCount == live.length) {
+            live = Arrays.copyOf(live, Math.max(16, liveCount * 2));
+        }
+        live[liveCount++] = cell;
+        slot[cell] = liveCount;
+    }
+
+    /**
+     * Removes a cell from the list of ALIVE cells, moving the last entry into its place.
+     * @param cell
+     */
+    private void removeLive(final int cell) {
+        final int at = slot[cell] - 1;
+        final int moved = live[--liveCount];
+        live[at] = moved;
+        slot[moved] = at + 1;
+        slot[cell] = 0;
+    }
+
+    /**
+     * Builds the grid and counts from a Universe.
+     * @param universe
+     */
+    private void load(final Universe universe) {
+        final int margin = margin(universe.getRows(), universe.getColumns());
+        allocate(universe.getRows() + (2 * margin), universe.getColumns() + (2 * margin));
+        changed = new int[16];
+        changedCount = 0;
+        for (final Cell cell : universe.getCells()) {
+            if (State.ALIVE.equals(cell.getState())) {
+                born(((cell.getRow() + margin) * columns) + cell.getColumn() + margin);
+            }
+        }
+    }
+
+    /**
+     * Builds the grid again around the bounds of the ALIVE cells, keeping cells, counts and the list of changes.
+     * Changes that fall outside the new grid are dropped: they are dead cells at least the margin away from any ALIVE
+     * cell, so neither they nor their neighbours can change in the next tick.
+     */
+    private void rebuild() {
+        int top = Integer.MAX_VALUE;
+        int left = Integer.MAX_VALUE;
+        int bottom = -1;
+        int right = -1;
+        for (int k = 0; k < liveCount; k++) {
+            final int row = live[k] / columns;
+            final int column = live[k] % columns;
+            top = Math.min(top, row);
+            bottom = Math.max(bottom, row);
+            left = Math.min(left, column);
+            right = Math.max(right, column);
+        }
+        final int margin = margin((bottom - top) + 1, (right - left) + 1);
+        final int rowShift = margin - top;
+        final int columnShift = margin - left;
+        final int oldColumns = columns;
+        final int[] oldLive = Arrays.copyOf(live, liveCount);
+        allocate((bottom - top) + 1 + (2 * margin), (right - left) + 1 + (2 * margin));
+        for (final int cell : oldLive) {
+            born((((cell / oldColumns) + rowShift) * columns) + (cell % oldColumns) + columnShift);
+        }
+        int kept = 0;
+        for (int k = 0; k < changedCount; k++) {
+            final int row = (changed[k] / oldColumns) + rowShift;
+            final int column = (changed[k] % oldColumns) + columnShift;
+            if ((row >= 1) && (row < (rows - 1)) && (column >= 1) && (column < (columns - 1))) {
+                changed[kept++] = (row * columns) + column;
+            }
+        }
+        changedCount = kept;
+    }
+
+    /**
+     * Dead cells to keep around a pattern of the given size: half its larger side and at least MARGIN.
+     * @param patternRows
+     * @param patternColumns
+     * @return int
+     */
+    private static int margin(final int patternRows, final int patternColumns) {
+        return Math.max(MARGIN, Math.max(patternRows, patternColumns) / 2);
+    }
+
+    /**
+     * Replaces the grid with an empty one of the given size.
+     * @param newRows
+     * @param newColumns
+     */
+    private void allocate(final int newRows, final int newColumns) {
+        rows = newRows;
+        columns = newColumns;
+        alive = new byte[rows * columns];
+        counts = new byte[rows * columns];
+        seen = new int[rows * columns];
+        slot = new int[rows * columns];
+        live = new int[Math.max(16, liveCount)];
+        liveCount = 0;
+    }
+
+    /**
+     * Makes a cell of an empty or partly filled grid ALIVE and counts it in its neighbours.
+     * @param index
+     */
+    private void born(final int index) {
+        alive[index] = 1;
+        addLive(index);
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                if ((dr != 0) || (dc != 0)) {
+                    counts[index + (dr * columns) + dc]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Universe of the ALIVE cells, trimmed to their bounds. Only the list of ALIVE cells and the grid within their
+     * bounds are read.
+     * @return Universe
+     */
+    private Universe toUniverse() {
+        if (liveCount == 0) {
+            return UniverseUtil.createUniverse(new char[0][0]);
+        }
+        int top = Integer.MAX_VALUE;
+        int left = Integer.MAX_VALUE;
+        int bottom = -1;
+        int right = -1;
+        for (int k = 0; k < liveCount; k++) {
+            final int row = live[k] / columns;
+            final int column = live[k] % columns;
+            top = Math.min(top, row);
+            bottom = Math.max(bottom, row);
+            left = Math.min(left, column);
+            right = Math.max(right, column);
+        }
+        final List<Cell> cells = new ArrayList<Cell>(((bottom - top) + 1) * ((right - left) + 1));
+        for (int i = top; i <= bottom; i++) {
+            for (int j = left; j <= right; j++) {
+                cells.add(new Cell(i - top, j - left, (alive[(i * columns) + j] != 0) ? State.ALIVE : State.DEAD));
+            }
+        }
+        return new Universe((bottom - top) + 1, (right - left) + 1, cells);
+    }
+}
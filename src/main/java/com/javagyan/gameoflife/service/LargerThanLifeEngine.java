@@ -0,0 +1,209 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.State;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Steps Larger than Life rules with a summed area table, so that counting the (2R + 1)^2 neighbourhood of a cell takes
+ * four lookups whatever the range. The board grows by the range on every side before a tick, all the room a tick can
+ * take, and is trimmed afterwards.
+ *
+ * With more than one thread the table and the next generation are computed in bands of rows (and of columns for the
+ * second pass of the table) on a pool of daemon threads owned by the engine. Such an engine must be closed to stop
+ * its threads, and can not step boards afterwards.
+ *
+ * The engine is not registered for ServiceLoader, as the rules of this program have engines of their own that step
+ * them faster; it is built with the rule to play.
+ * @author Sanjeev Kumar
+ */
+public final class LargerThanLifeEngine implements LifeEngine, AutoCloseable {
+
+    /** Name of the engine. */
+    public static final String NAME = "ltl";
+
+    /** Cost units per cell, the same for any range. */
+    private static final double COST_PER_CELL = 12;
+
+    /** Cost units for handing a band to the pool and waiting for it, three passes per tick. */
+    private static final double COST_PER_BAND = 20000;
+
+    /** Rule to apply. */
+    private final LargerThanLifeRule rule;
+
+    /** Count of threads. */
+    private final int threads;
+
+    /** Pool for the bands, null with a single thread. */
+    private final ExecutorService pool;
+
+    /**
+     * Constructor.
+     *
+     * @param rule
+     * @param threads count of threads working on bands of the board
+     */
+    public LargerThanLifeEngine(final LargerThanLifeRule rule, final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        this.rule = rule;
+        this.threads = threads;
+        this.pool = (threads == 1) ? null : Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "larger-than-life");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Generates the next generation under the rule of this engine.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        final int range = rule.getRange();
+        final int rows = universe.getRows() + (2 * range);
+        final int columns = universe.getColumns() + (2 * range);
+        final int stride = columns + 1;
+        // table[(i + 1) * stride + (j + 1)] = ALIVE cells in rows 0..i and columns 0..j of the grown board
+        final int[] table = new int[(rows + 1) * stride];
+        for (final Cell cell : universe.getCells()) {
+            if (State.ALIVE.equals(cell.getState())) {
+                table[((cell.getRow() + range + 1) * stride) + cell.getColumn() + range + 1] = 1;
+            }
+        }
+        final PackedGrid next = new PackedGrid(rows, columns);
+
+        runBands(rows, new Band() {
+            public void run(final int from, final int to) {
+                for (int i = from + 1; i <= to; i++) {
+                    final int base = i * stride;
+                    for (int j = 1; j < stride; j++) {
+                        table[base + j] += table[(base + j) - 1];
+                    }
+                }
+            }
+        });
+        runBands(columns, new Band() {
+            public void run(final int from, final int to) {
+                for (int i = 1; i <= rows; i++) {
+                    final int base = i * stride;
+                    for (int j = from + 1; j <= to; j++) {
+                        table[base + j] += table[(base + j) - stride];
+                    }
+                }
+            }
+        });
+        runBands(rows, new Band() {
+            public void run(final int from, final int to) {
+                for (int i = from; i < to; i++) {
+                    final int top = Math.max(0, i - range) * stride;
+                    final int bottom = (Math.min(rows - 1, i + range) + 1) * stride;
+                    for (int j = 0; j < columns; j++) {
+                        final int left = Math.max(0, j - range);
+                        final int right = Math.min(columns - 1, j + range) + 1;
+                        final int self = table[((i + 1) * stride) + j + 1] - table[(i * stride) + j + 1]
+                                - table[((i + 1) * stride) + j] + table[(i * stride) + j];
+                        final int sum = (table[bottom + right] - table[top + right] - table[bottom + left])
+                                + table[top + left];
+                        if (rule.isAliveNext(self == 1, sum - self)) {
+                            next.set(i, j, true); // bands own whole rows, so no two threads share a word
+                        }
+                    }
+                }
+            }
+        });
+        return UniverseUtil.createUniverse(next);
+    }
+
+    /**
+     * Same cost per cell for any range, which is the point of the summed area table, shared by the threads at a fixed
+     * cost per band.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        final double bands = (pool == null) ? 0 : (3.0 * threads);
+        return ((COST_PER_CELL * profile.getArea()) / threads) + (COST_PER_BAND * bands);
+    }
+
+    /**
+     * Shuts the pool down, letting its threads end. Engines with a single thread have nothing to close.
+     */
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Splits 0..count into one band per thread and waits for all of them.
+     * @param count
+     * @param band
+     */
+    private void runBands(final int count, final Band band) {
+        if (pool == null) {
+            band.run(0, count);
+            return;
+        }
+        if (pool.isShutdown()) {
+            throw new IllegalStateException("Engine has been closed");
+        }
+        final int size = (count + threads - 1) / threads;
+        final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int from = 0; from < count; from += size) {
+            final int start = from;
+            final int end = Math.min(count, from + size);
+            futures.add(pool.submit(new Callable<Void>() {
+                public Void call() {
+                    band.run(start, end);
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (final Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stepping", e);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Band failed", e.getCause());
+        }
+    }
+
+    /**
+     * Work on a range of rows or columns.
+     */
+    private interface Band {
+        /**
+         * Does the work for indexes from (inclusive) to (exclusive).
+         * @param from
+         * @param to
+         */
+        void run(int from, int to);
+    }
+}
@@ -0,0 +1,112 @@
+package com.javagyan.gameoflife.service;
+
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Rule of the Larger than Life family: a cell looks at every cell within the given range in both directions, a square
+ * of (2 * range + 1)^2 cells less the cell itself. A DEAD cell comes to life when the count of ALIVE neighbours is
+ * within the birth interval, an ALIVE cell stays alive when it is within the survival interval.
+ * @author Sanjeev Kumar
+ */
+public final class LargerThanLifeRule {
+
+    /** Largest supported range. */
+    public static final int MAX_RANGE = 10;
+
+    /**
+     * Neighbourhood range.
+     */
+    private final int range;
+
+    /**
+     * Smallest neighbour count that brings a DEAD cell to life.
+     */
+    private final int birthMin;
+
+    /**
+     * Largest neighbour count that brings a DEAD cell to life.
+     */
+    private final int birthMax;
+
+    /**
+     * Smallest neighbour count that keeps an ALIVE cell alive.
+     */
+    private final int survivalMin;
+
+    /**
+     * Largest neighbour count that keeps an ALIVE cell alive.
+     */
+    private final int survivalMax;
+
+    /**
+     * Constructor.
+     *
+     * @param range1 from 1 to MAX_RANGE
+     * @param birthMin1 at least 1, as birth with no neighbours would fill the infinite plane
+     * @param birthMax1 from birthMin1 to (2 * range1 + 1)^2 - 1
+     * @param survivalMin1 at least 0
+     * @param survivalMax1 from survivalMin1 to (2 * range1 + 1)^2 - 1
+     */
+    public LargerThanLifeRule(final int range1, final int birthMin1, final int birthMax1, final int survivalMin1,
+            final int survivalMax1) {
+        if ((range1 < 1) || (range1 > MAX_RANGE)) {
+            throw new IllegalArgumentException("Range must be between 1 and " + MAX_RANGE + ": " + range1);
+        }
+        final int maxCount = (((2 * range1) + 1) * ((2 * range1) + 1)) - 1;
+        if (birthMin1 < 1) {
+            throw new IllegalArgumentException("Birth with no neighbours would fill the infinite plane");
+        }
+        if ((birthMin1 > birthMax1) || (birthMax1 > maxCount)) {
+            throw new IllegalArgumentException("Birth interval must lie within 1.." + maxCount + ": " + birthMin1 + ".."
+                    + birthMax1);
+        }
+        if ((survivalMin1 < 0) || (survivalMin1 > survivalMax1) || (survivalMax1 > maxCount)) {
+            throw new IllegalArgumentException("Survival interval must lie within 0.." + maxCount + ": "
+                    + survivalMin1 + ".." + survivalMax1);
+        }
+        range       = range1;
+        birthMin    = birthMin1;
+        birthMax    = birthMax1;
+        survivalMin = survivalMin1;
+        survivalMax = survivalMax1;
+    }
+
+    /**
+     * The rules of this program, which are Larger than Life with range 1.
+     * @return LargerThanLifeRule
+     */
+    public static LargerThanLifeRule conway() {
+        return new LargerThanLifeRule(1, UniverseUtil.BRING_TO_LIFE_COUNT, UniverseUtil.BRING_TO_LIFE_COUNT,
+                UniverseUtil.LONELILESS_LIMIT, UniverseUtil.OVER_CROWDING_LIMIT);
+    }
+
+    /**
+     * gets neighbourhood range.
+     * @return range
+     */
+    public int getRange() {
+        return range;
+    }
+
+    /**
+     * Next state of a cell.
+     * @param alive
+     * @param neighbours count of ALIVE neighbours, not counting the cell itself
+     * @return boolean
+     */
+    public boolean isAliveNext(final boolean alive, final int neighbours) {
+        if (alive) {
+            return (neighbours >= survivalMin) && (neighbours <= survivalMax);
+        }
+        return (neighbours >= birthMin) && (neighbours <= birthMax);
+    }
+
+    /**
+     * Readable form of the rule, in the usual R,B,S notation.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "R" + range + ",B" + birthMin + ".." + birthMax + ",S" + survivalMin + ".." + survivalMax;
+    }
+}
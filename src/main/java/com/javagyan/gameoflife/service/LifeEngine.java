@@ -0,0 +1,35 @@
+package com.javagyan.gameoflife.service;
+
+import com.javagyan.gameoflife.model.Universe;
+
+/**
+ * Strategy that generates the next generation of a Universe. Implementations are found with java.util.ServiceLoader
+ * through META-INF/services/com.javagyan.gameoflife.service.LifeEngine, so they need a public no argument constructor.
+ *
+ * An engine may keep state between calls to speed up stepping a run, so an instance should not be shared between runs
+ * that are played at the same time.
+ * @author Sanjeev Kumar
+ */
+public interface LifeEngine {
+
+    /**
+     * Short name used to pick the engine, for example with the gameoflife.engine system property.
+     * @return String
+     */
+    String getName();
+
+    /**
+     * Generates the next generation of the Universe.
+     * @param universe
+     * @return Universe
+     */
+    Universe nextGeneration(Universe universe);
+
+    /**
+     * Rough cost of generating the next generation of a board with the given profile, in the same made up units for
+     * every engine so that they can be compared. Double.POSITIVE_INFINITY means the engine does not suit the board.
+     * @param profile
+     * @return double
+     */
+    double estimateCost(BoardProfile profile);
+}
@@ -0,0 +1,52 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Finds LifeEngine implementations with java.util.ServiceLoader.
+ * @author Sanjeev Kumar
+ */
+public final class LifeEngines {
+
+    /** System property naming the engine GameOfLifePlayer should use. */
+    public static final String ENGINE_PROPERTY = "gameoflife.engine";
+
+    /**
+     * Fresh instances of all registered engines.
+     * @return List<LifeEngine>
+     */
+    public static List<LifeEngine> load() {
+        final List<LifeEngine> engines = new ArrayList<LifeEngine>();
+        for (final LifeEngine engine : ServiceLoader.load(LifeEngine.class)) {
+            engines.add(engine);
+        }
+        return engines;
+    }
+
+    /**
+     * Fresh instance of the engine with the given name. "adaptive" gives an AdaptiveEngine choosing among all
+     * registered engines.
+     * @param name
+     * @return LifeEngine
+     */
+    public static LifeEngine forName(final String name) {
+        if (AdaptiveEngine.NAME.equals(name)) {
+            return new AdaptiveEngine();
+        }
+        final List<String> known = new ArrayList<String>();
+        for (final LifeEngine engine : load()) {
+            if (engine.getName().equals(name)) {
+                return engine;
+            }
+            known.add(engine.getName());
+        }
+        throw new IllegalArgumentException("Unknown engine " + name + ", known engines are " + known + " and "
+                + AdaptiveEngine.NAME);
+    }
+
+    /** Private constructor so that construction of instance is avoided from outside the class. */
+    private LifeEngines() {
+    }
+}
@@ -0,0 +1,100 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Remembers the next generation of every board it has stepped, in the spirit of HashLife but for whole boards only.
+ * Once a pattern repeats, each tick is a lookup instead of a step. Boards that are seen for the first time are stepped
+ * with PackedEngine.
+ *
+ * Boards and their next generations are kept packed, one bit per cell, and the memo is bounded by both a count of
+ * boards and their bytes, so that large boards do not pile up behind the default engine chain.
+ * @author Sanjeev Kumar
+ */
+public final class MemoizingEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "memo";
+
+    /** Count of remembered boards, least recently used ones are dropped first. */
+    private static final int CAPACITY = 256;
+
+    /** Bytes of packed boards that may be remembered, least recently used ones are dropped first. */
+    private static final long MAX_BYTES = 32L << 20;
+
+    /** Cost units per cell for packing and hashing the board and unpacking the result. */
+    private static final double COST_PER_CELL = 4;
+
+    /** Trimmed next generation by packed board, in order of use. */
+    private final Map<PackedGrid, PackedGrid> memo = new LinkedHashMap<PackedGrid, PackedGrid>(CAPACITY, 0.75f, true);
+
+    /** Bytes of the boards in the memo. */
+    private long bytes;
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Looks the board up, stepping and remembering it on a miss.
+     * @param universe
+     * @return Universe
+     */
+    public synchronized Universe nextGeneration(final Universe universe) {
+        final PackedGrid grid = UniverseUtil.convertToPackedGrid(universe);
+        final PackedGrid known = memo.get(grid);
+        if (known != null) {
+            return UniverseUtil.createUniverse(known);
+        }
+        final Universe next = UniverseUtil.createUniverse(PackedEngine.step(grid));
+        final PackedGrid packed = UniverseUtil.convertToPackedGrid(next);
+        memo.put(grid, packed);
+        bytes += bytesOf(grid) + bytesOf(packed);
+        final Iterator<Map.Entry<PackedGrid, PackedGrid>> eldest = memo.entrySet().iterator();
+        while ((memo.size() > 1) && ((memo.size() > CAPACITY) || (bytes > MAX_BYTES))) {
+            final Map.Entry<PackedGrid, PackedGrid> entry = eldest.next();
+            bytes -= bytesOf(entry.getKey()) + bytesOf(entry.getValue());
+            eldest.remove();
+        }
+        return next;
+    }
+
+    /**
+     * Bytes of the remembered boards.
+     * @return long
+     */
+    public synchronized long getMemoryBytes() {
+        return bytes;
+    }
+
+    /**
+     * Bytes of the words of a packed board.
+     * @param grid
+     * @return long
+     */
+    private static long bytesOf(final PackedGrid grid) {
+        return (long) grid.getWords().length * (Long.SIZE / Byte.SIZE);
+    }
+
+    /**
+     * Only worth it once the board has been seen repeating.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        if ((profile.getPeriod() == 0) || (profile.getPeriod() > CAPACITY)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return COST_PER_CELL * profile.getArea();
+    }
+}
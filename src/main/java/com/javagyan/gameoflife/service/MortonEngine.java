@@ -0,0 +1,182 @@
+package com.javagyan.gameoflife.service;
+
+import com.javagyan.gameoflife.model.MortonGrid;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Steps a copy of the Universe kept in Morton ordered 8x8 tiles, one tile of 64 cells at a time. Tiles are visited in
+ * the order they are stored, so the tile being written and the eight tiles it reads are mostly in cache already. Each
+ * neighbour of the 64 cells is lined up with shifts of the tile and of the tile next to it, and WordLogic applies the
+ * rules to all of them at once.
+ * @author Sanjeev Kumar
+ */
+public final class MortonEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "morton";
+
+    /** Cost units per cell for turning the Universe into a grid and back. */
+    private static final double CONVERSION_COST_PER_CELL = 4;
+
+    /** Cost units per tile of 64 cells. */
+    private static final double COST_PER_TILE = 50;
+
+    /** Bits of the first column of a tile. */
+    private static final long FIRST_COLUMN = 0x0101010101010101L;
+
+    /** Bits of the last column of a tile. */
+    private static final long LAST_COLUMN = FIRST_COLUMN << (MortonGrid.TILE_SIZE - 1);
+
+    /** Largest count of tiles in a block. */
+    private static final int MAX_BLOCK_TILES = 256;
+
+    /** Tile row within its block of each Morton slot, the same for blocks of every size. */
+    private static final int[] ROW_IN_BLOCK = new int[MAX_BLOCK_TILES];
+
+    /** Tile column within its block of each Morton slot. */
+    private static final int[] COLUMN_IN_BLOCK = new int[MAX_BLOCK_TILES];
+
+    static {
+        for (int slot = 0; slot < MAX_BLOCK_TILES; slot++) {
+            for (int bit = 0; bit < 4; bit++) {
+                COLUMN_IN_BLOCK[slot] |= ((slot >> (2 * bit)) & 1) << bit;
+                ROW_IN_BLOCK[slot] |= ((slot >> ((2 * bit) + 1)) & 1) << bit;
+            }
+        }
+    }
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Copies the Universe into tiles with a margin of one cell, which is all the room a single tick can take, steps
+     * it and copies the result back.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        final MortonGrid grid = MortonGrid.of(UniverseUtil.convertToPackedGrid(universe), 1);
+        return UniverseUtil.createUniverse(step(grid).toPackedGrid());
+    }
+
+    /**
+     * Next generation of a grid, of the same size. Cells outside the grid are DEAD and births outside it are dropped.
+     * A block is copied with the ring of tiles around it into a small row major scratch array, so that each of its
+     * tiles finds its neighbours at fixed offsets; the block itself is read in one run of memory.
+     * @param grid
+     * @return MortonGrid
+     */
+    public static MortonGrid step(final MortonGrid grid) {
+        final MortonGrid next = new MortonGrid(grid.getRows(), grid.getColumns());
+        final long[] source = grid.getTiles();
+        final long[] tiles = next.getTiles();
+        final int side = grid.getBlockSide();
+        final int blockTiles = side * side;
+        final int width = side + 2;
+        final long[] scratch = new long[width * width];
+        for (int base = 0; base < tiles.length; base += blockTiles) {
+            final int top = grid.tileRow(base);
+            final int left = grid.tileColumn(base);
+            for (int slot = 0; slot < blockTiles; slot++) {
+                scratch[((ROW_IN_BLOCK[slot] + 1) * width) + COLUMN_IN_BLOCK[slot] + 1] = source[base + slot];
+            }
+            for (int i = -1; i <= side; i++) {
+                scratch[(i + 1) * width] = grid.getTile(top + i, left - 1);
+                scratch[((i + 1) * width) + side + 1] = grid.getTile(top + i, left + side);
+            }
+            for (int j = 0; j < side; j++) {
+                scratch[j + 1] = grid.getTile(top - 1, left + j);
+                scratch[((side + 1) * width) + j + 1] = grid.getTile(top + side, left + j);
+            }
+            for (int slot = 0; slot < blockTiles; slot++) {
+                final int tr = top + ROW_IN_BLOCK[slot];
+                final int tc = left + COLUMN_IN_BLOCK[slot];
+                if ((tr >= grid.getTileRows()) || (tc >= grid.getTileColumns())) {
+                    continue; // slot of a tile outside the grid
+                }
+                final int at = ((ROW_IN_BLOCK[slot] + 1) * width) + COLUMN_IN_BLOCK[slot] + 1;
+                final long center = scratch[at];
+                final long north = scratch[at - width];
+                final long south = scratch[at + width];
+                final long west = scratch[at - 1];
+                final long east = scratch[at + 1];
+                final long northWest = scratch[at - width - 1];
+                final long northEast = scratch[(at - width) + 1];
+                final long southWest = scratch[(at + width) - 1];
+                final long southEast = scratch[at + width + 1];
+                if ((center | north | south | west | east | northWest | northEast | southWest | southEast) == 0) {
+                    continue;
+                }
+                final long fromWest = fromWest(center, west);
+                final long fromEast = fromEast(center, east);
+                long tile = WordLogic.next(center, fromNorth(center, north), fromSouth(center, south), fromWest,
+                        fromEast, fromNorth(fromWest, fromWest(north, northWest)),
+                        fromNorth(fromEast, fromEast(north, northEast)),
+                        fromSouth(fromWest, fromWest(south, southWest)),
+                        fromSouth(fromEast, fromEast(south, southEast)));
+                if ((tr == (grid.getTileRows() - 1)) || (tc == (grid.getTileColumns() - 1))) {
+                    tile &= grid.getTileMask(tr, tc);
+                }
+                tiles[base + slot] = tile;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Every tile of the board is stepped, on top of the conversions.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        final double tileCount = ((profile.getRows() / (double) MortonGrid.TILE_SIZE) + 1)
+                * ((profile.getColumns() / (double) MortonGrid.TILE_SIZE) + 1);
+        return (CONVERSION_COST_PER_CELL * profile.getArea()) + (COST_PER_TILE * tileCount);
+    }
+
+    /**
+     * Lines up the west neighbour of every cell of a tile with the cell.
+     * @param tile
+     * @param west tile to the west
+     * @return long
+     */
+    private static long fromWest(final long tile, final long west) {
+        return ((tile << 1) & ~FIRST_COLUMN) | ((west >>> (MortonGrid.TILE_SIZE - 1)) & FIRST_COLUMN);
+    }
+
+    /**
+     * Lines up the east neighbour of every cell of a tile with the cell.
+     * @param tile
+     * @param east tile to the east
+     * @return long
+     */
+    private static long fromEast(final long tile, final long east) {
+        return ((tile >>> 1) & ~LAST_COLUMN) | ((east << (MortonGrid.TILE_SIZE - 1)) & LAST_COLUMN);
+    }
+
+    /**
+     * Lines up the north neighbour of every cell of a tile with the cell.
+     * @param tile
+     * @param north tile to the north
+     * @return long
+     */
+    private static long fromNorth(final long tile, final long north) {
+        return (tile << MortonGrid.TILE_SIZE) | (north >>> (Long.SIZE - MortonGrid.TILE_SIZE));
+    }
+
+    /**
+     * Lines up the south neighbour of every cell of a tile with the cell.
+     * @param tile
+     * @param south tile to the south
+     * @return long
+     */
+    private static long fromSouth(final long tile, final long south) {
+        return (tile >>> MortonGrid.TILE_SIZE) | (south << (Long.SIZE - MortonGrid.TILE_SIZE));
+    }
+}
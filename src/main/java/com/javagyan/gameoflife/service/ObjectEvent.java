@@ -0,0 +1,121 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Change to an object of the board in one generation, as reported by ObjectTracker.
+ * @author Sanjeev Kumar
+ */
+public final class ObjectEvent {
+
+    /**
+     * Kinds of change.
+     */
+    public enum Type {
+        /** An object appeared with no cells of an earlier object in it. */
+        BIRTH,
+        /** Two or more objects joined; the related ids are the objects that joined. */
+        MERGE,
+        /** An object fell apart; the related ids are the objects it fell into. */
+        SPLIT,
+        /** All cells of an object died. */
+        DEATH;
+    }
+
+    /** Kind of change. */
+    private final Type type;
+
+    /** Generation in which the change happened, the seed being generation 0. */
+    private final int generation;
+
+    /** Object that was born, merged into, split or died. */
+    private final int objectId;
+
+    /** Objects that merged, or that the object split into. */
+    private final List<Integer> related;
+
+    /** Count of cells of the object after the change, 0 for a death. */
+    private final int size;
+
+    /** Generation in which the object was born. */
+    private final int bornAt;
+
+    /**
+     * Constructor.
+     *
+     * @param type1
+     * @param generation1
+     * @param objectId1
+     * @param related1
+     * @param size1
+     * @param bornAt1
+     */
+    public ObjectEvent(final Type type1, final int generation1, final int objectId1, final List<Integer> related1,
+            final int size1, final int bornAt1) {
+        type        = type1;
+        generation  = generation1;
+        objectId    = objectId1;
+        related     = Collections.unmodifiableList(related1);
+        size        = size1;
+        bornAt      = bornAt1;
+    }
+
+    /**
+     * Returns the kind of change.
+     * @return Type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the generation in which the change happened, the seed being generation 0.
+     * @return int
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the id of the object that was born, merged into, split or died.
+     * @return int
+     */
+    public int getObjectId() {
+        return objectId;
+    }
+
+    /**
+     * Returns the ids of the objects that merged, or that the object split into; empty for births and deaths.
+     * @return List<Integer>
+     */
+    public List<Integer> getRelated() {
+        return related;
+    }
+
+    /**
+     * Returns the count of cells of the object after the change, 0 for a death.
+     * @return int
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the generation in which the object was born; for a death, the lifetime is getGeneration() - getBornAt().
+     * @return int
+     */
+    public int getBornAt() {
+        return bornAt;
+    }
+
+    /**
+     * Readable form of the event.
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "Generation " + generation + ": " + type + " of " + objectId + (related.isEmpty() ? "" : " " + related)
+                + ", size " + size;
+    }
+}
@@ -0,0 +1,457 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.Universe;
+
+/**
+ * Labels the objects of a board, the groups of ALIVE cells connected to each other, and follows them from generation
+ * to generation. Each tick only the cells that were born or died are looked at: objects that hold a dead cell or lie
+ * within reach of a born cell are labelled again with union find over their remaining cells and the births, and every
+ * other object keeps its label without being visited. Union find can not take cells away, so an object that loses
+ * cells is labelled again as a whole; the work follows the objects that changed rather than the area of the board.
+ *
+ * When objects join, the largest of them keeps its id; when an object falls apart, the part with most of its cells
+ * keeps it. Every birth, merge, split and death is reported as an ObjectEvent.
+ *
+ * Positions are absolute, the seed being placed at 0,0. The caller, which has just stepped the board, gives each
+ * generation either as its births and deaths or as a Universe with the absolute position of its top left cell; the
+ * tracker neither steps the board again nor checks what it is given.
+ *
+ * Not thread safe.
+ * @author Sanjeev Kumar
+ */
+public final class ObjectTracker {
+
+    /**
+     * Ways for two cells to belong to the same object.
+     */
+    public enum Connectivity {
+        /** Cells touch, side or corner. */
+        NEIGHBOURS(1),
+        /** Cells are at most two rows and two columns apart, the usual meaning of an object in Life. */
+        LIFE_OBJECT(2);
+
+        /** Largest count of rows or columns between two connected cells. */
+        private final int reach;
+
+        /**
+         * Constructor.
+         * @param reach1
+         */
+        Connectivity(final int reach1) {
+            reach = reach1;
+        }
+
+        /**
+         * Returns the largest count of rows or columns between two connected cells.
+         * @return int
+         */
+        public int getReach() {
+            return reach;
+        }
+    }
+
+    /** Largest count of rows or columns between two connected cells. */
+    private final int reach;
+
+    /** Whether start has been called. */
+    private boolean started;
+
+    /** Generation of the board, the seed being generation 0. */
+    private int generation;
+
+    /** Id to give to the next new object. */
+    private int nextId;
+
+    /** Object id of every ALIVE cell, by key. */
+    private final Map<Long, Integer> labels = new HashMap<Long, Integer>();
+
+    /** Keys of the cells of every object, by id. */
+    private final Map<Integer, Set<Long>> members = new HashMap<Integer, Set<Long>>();
+
+    /** Generation in which every object was born, by id. */
+    private final Map<Integer, Integer> bornAt = new HashMap<Integer, Integer>();
+
+    /** Events of all generations so far. */
+    private final List<ObjectEvent> events = new ArrayList<ObjectEvent>();
+
+    /** Count of cells labelled in the last generation. */
+    private int lastRelabelled;
+
+    /**
+     * Tracker of 8-connected objects.
+     */
+    public ObjectTracker() {
+        this(Connectivity.NEIGHBOURS);
+    }
+
+    /**
+     * Constructor.
+     * @param connectivity
+     */
+    public ObjectTracker(final Connectivity connectivity) {
+        reach = connectivity.getReach();
+    }
+
+    /**
+     * Starts over with the given seed as generation 0. Every object of the seed is reported as born.
+     * @param seed
+     * @return List<ObjectEvent> events of the seed
+     */
+    public List<ObjectEvent> start(final Universe seed) {
+        final CellSet board = CellSet.of(seed, 0, 0);
+        started = true;
+        generation = 0;
+        nextId = 0;
+        labels.clear();
+        members.clear();
+        bornAt.clear();
+        events.clear();
+        final List<Long> births = new ArrayList<Long>();
+        for (int i = 0; i < board.size(); i++) {
+            births.add(board.getKey(i));
+        }
+        return update(births, Collections.<Long>emptyList());
+    }
+
+    /**
+     * Moves on to the next generation, given as a Universe whose cell 0,0 is at the given absolute position. The cells
+     * that changed are found by looking up the ALIVE cells of the Universe and of the tracked objects in each other.
+     * @param next generation after the last one given
+     * @param top absolute row of row 0 of the Universe
+     * @param left absolute column of column 0 of the Universe
+     * @return List<ObjectEvent> events of the generation
+     */
+    public List<ObjectEvent> advance(final Universe next, final int top, final int left) {
+        final List<Long> births = new ArrayList<Long>();
+        final Set<Long> alive = new HashSet<Long>();
+        for (final Cell cell : next.getAliveCells()) {
+            final long key = CellSet.key(top + cell.getRow(), left + cell.getColumn());
+            alive.add(key);
+            if (!labels.containsKey(key)) {
+                births.add(key);
+            }
+        }
+        final List<Long> deaths = new ArrayList<Long>();
+        for (final Long key : labels.keySet()) {
+            if (!alive.contains(key)) {
+                deaths.add(key);
+            }
+        }
+        return advance(births, deaths);
+    }
+
+    /**
+     * Moves on to the next generation, given as the cells that were born and that died, as CellSet keys at absolute
+     * positions. Only the objects near these cells are looked at.
+     * @param births
+     * @param deaths
+     * @return List<ObjectEvent> events of the generation
+     * @throws IllegalArgumentException when a birth is at an ALIVE cell or a death at a cell that is not, in which
+     *         case nothing is changed
+     */
+    public List<ObjectEvent> advance(final Collection<Long> births, final Collection<Long> deaths) {
+        if (!started) {
+            throw new IllegalStateException("Tracker has not been started");
+        }
+        for (final Long key : births) {
+            if (labels.containsKey(key)) {
+                throw new IllegalArgumentException("Cell born at " + CellSet.row(key) + "," + CellSet.column(key)
+                        + " is already ALIVE");
+            }
+        }
+        for (final Long key : deaths) {
+            if (!labels.containsKey(key)) {
+                throw new IllegalArgumentException("Cell died at " + CellSet.row(key) + "," + CellSet.column(key)
+                        + " is not ALIVE");
+            }
+        }
+        generation++;
+        return update(births, deaths);
+    }
+
+    /**
+     * Labels again the objects touched by the changed cells and reports what happened to them.
+     * @param births
+     * @param deaths
+     * @return List<ObjectEvent>
+     */
+    private List<ObjectEvent> update(final Collection<Long> births, final Collection<Long> deaths) {
+        final Set<Integer> affected = new TreeSet<Integer>();
+        for (final Long key : deaths) {
+            final Integer label = labels.remove(key);
+            members.get(label).remove(key);
+            affected.add(label);
+        }
+        for (final Long key : births) {
+            final int row = CellSet.row(key);
+            final int column = CellSet.column(key);
+            for (int r = row - reach; r <= (row + reach); r++) {
+                for (int c = column - reach; c <= (column + reach); c++) {
+                    final Integer label = labels.get(CellSet.key(r, c));
+                    if (label != null) {
+                        affected.add(label);
+                    }
+                }
+            }
+        }
+
+        // cells to label again, sorted so that ids are given in a stable order
+        int count = births.size();
+        for (final Integer label : affected) {
+            count += members.get(label).size();
+        }
+        final long[] cells = new long[count];
+        int at = 0;
+        for (final Long key : births) {
+            cells[at++] = key;
+        }
+        for (final Integer label : affected) {
+            for (final Long key : members.get(label)) {
+                cells[at++] = key;
+            }
+        }
+        Arrays.sort(cells);
+        lastRelabelled = count;
+        final List<long[]> parts = components(cells);
+
+        // old labels in each part, and the part holding most of each old label
+        final List<Map<Integer, Integer>> oldLabels = new ArrayList<Map<Integer, Integer>>();
+        final Map<Integer, Integer> heir = new HashMap<Integer, Integer>();
+        final Map<Integer, Integer> heirCount = new HashMap<Integer, Integer>();
+        final Map<Integer, List<Integer>> partsOf = new HashMap<Integer, List<Integer>>();
+        for (int p = 0; p < parts.size(); p++) {
+            final Map<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+            for (final long key : parts.get(p)) {
+                final Integer label = labels.get(key);
+                if (label != null) {
+                    final Integer known = counts.get(label);
+                    counts.put(label, (known == null) ? 1 : (known + 1));
+                }
+            }
+            for (final Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+                final Integer best = heirCount.get(entry.getKey());
+                if ((best == null) || (entry.getValue() > best)) {
+                    heir.put(entry.getKey(), p);
+                    heirCount.put(entry.getKey(), entry.getValue());
+                }
+                List<Integer> list = partsOf.get(entry.getKey());
+                if (list == null) {
+                    list = new ArrayList<Integer>();
+                    partsOf.put(entry.getKey(), list);
+                }
+                list.add(p);
+            }
+            oldLabels.add(counts);
+        }
+
+        // a part keeps the largest old label it is heir to, or gets a new id
+        final int[] ids = new int[parts.size()];
+        for (int p = 0; p < parts.size(); p++) {
+            int best = -1;
+            for (final Integer label : oldLabels.get(p).keySet()) {
+                if ((heir.get(label) == p) && ((best < 0) || (members.get(label).size() > members.get(best).size()))) {
+                    best = label;
+                }
+            }
+            if (best < 0) {
+                best = nextId++;
+                bornAt.put(best, generation);
+            }
+            ids[p] = best;
+        }
+
+        final List<ObjectEvent> tick = new ArrayList<ObjectEvent>();
+        final Set<Integer> kept = new HashSet<Integer>();
+        for (final int id : ids) {
+            kept.add(id);
+        }
+        for (final Integer label : affected) {
+            final List<Integer> split = partsOf.get(label);
+            if (split == null) {
+                tick.add(new ObjectEvent(ObjectEvent.Type.DEATH, generation, label, Collections.<Integer>emptyList(),
+                        0, bornAt.get(label)));
+            } else if (split.size() > 1) {
+                final List<Integer> into = new ArrayList<Integer>();
+                for (final Integer p : split) {
+                    into.add(ids[p]);
+                }
+                final int size = kept.contains(label) ? parts.get(heir.get(label)).length : 0;
+                tick.add(new ObjectEvent(ObjectEvent.Type.SPLIT, generation, label, into, size, bornAt.get(label)));
+            }
+        }
+        for (int p = 0; p < parts.size(); p++) {
+            final Set<Integer> old = oldLabels.get(p).keySet();
+            if (old.isEmpty()) {
+                tick.add(new ObjectEvent(ObjectEvent.Type.BIRTH, generation, ids[p], Collections.<Integer>emptyList(),
+                        parts.get(p).length, generation));
+            } else if (old.size() > 1) {
+                tick.add(new ObjectEvent(ObjectEvent.Type.MERGE, generation, ids[p], new ArrayList<Integer>(old),
+                        parts.get(p).length, bornAt.get(ids[p])));
+            }
+        }
+
+        for (final Integer label : affected) {
+            members.remove(label);
+            if (!kept.contains(label)) {
+                bornAt.remove(label);
+            }
+        }
+        for (int p = 0; p < parts.size(); p++) {
+            final Set<Long> set = new HashSet<Long>();
+            for (final long key : parts.get(p)) {
+                set.add(key);
+                labels.put(key, ids[p]);
+            }
+            members.put(ids[p], set);
+        }
+        events.addAll(tick);
+        return tick;
+    }
+
+    /**
+     * Splits sorted cells into groups of connected cells with union find, in the order of their first cells.
+     * @param cells
+     * @return List<long[]>
+     */
+    private List<long[]> components(final long[] cells) {
+        final int[] parent = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            final int row = CellSet.row(cells[i]);
+            final int column = CellSet.column(cells[i]);
+            for (int r = row; r <= (row + reach); r++) { // cells before this one are joined from their side
+                for (int c = column - reach; c <= (column + reach); c++) {
+                    final int j = Arrays.binarySearch(cells, CellSet.key(r, c));
+                    if (j > i) {
+                        parent[find(parent, i)] = find(parent, j);
+                    }
+                }
+            }
+        }
+        final Map<Integer, List<Long>> groups = new HashMap<Integer, List<Long>>();
+        final List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < cells.length; i++) {
+            final int root = find(parent, i);
+            List<Long> group = groups.get(root);
+            if (group == null) {
+                group = new ArrayList<Long>();
+                groups.put(root, group);
+                order.add(root);
+            }
+            group.add(cells[i]);
+        }
+        final List<long[]> parts = new ArrayList<long[]>();
+        for (final Integer root : order) {
+            final List<Long> group = groups.get(root);
+            final long[] keys = new long[group.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = group.get(i);
+            }
+            parts.add(keys);
+        }
+        return parts;
+    }
+
+    /**
+     * Root of a union find tree, halving the path on the way.
+     * @param parent
+     * @param index
+     * @return int
+     */
+    private static int find(final int[] parent, final int index) {
+        int i = index;
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Returns the generation of the tracked board, the seed being generation 0.
+     * @return int
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the ids of the objects on the board, in ascending order.
+     * @return List<Integer>
+     */
+    public List<Integer> getObjectIds() {
+        return new ArrayList<Integer>(new TreeSet<Integer>(members.keySet()));
+    }
+
+    /**
+     * Returns the count of cells of an object, 0 if there is no such object.
+     * @param id
+     * @return int
+     */
+    public int getSize(final int id) {
+        final Set<Long> set = members.get(id);
+        return (set == null) ? 0 : set.size();
+    }
+
+    /**
+     * Returns the cells of an object at absolute positions, the seed being placed at 0,0; empty if there is no such
+     * object.
+     * @param id
+     * @return CellSet
+     */
+    public CellSet getObject(final int id) {
+        final Set<Long> set = members.get(id);
+        if (set == null) {
+            return CellSet.EMPTY;
+        }
+        final long[] keys = new long[set.size()];
+        int i = 0;
+        for (final Long key : set) {
+            keys[i++] = key;
+        }
+        Arrays.sort(keys);
+        return new CellSet(keys, keys.length);
+    }
+
+    /**
+     * Returns the generation in which an object was born, -1 if there is no such object.
+     * @param id
+     * @return int
+     */
+    public int getBornAt(final int id) {
+        final Integer born = bornAt.get(id);
+        return (born == null) ? -1 : born;
+    }
+
+    /**
+     * Returns the events of all generations so far, in order.
+     * @return List<ObjectEvent>
+     */
+    public List<ObjectEvent> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Returns the count of cells labelled in the last generation.
+     * @return int
+     */
+    public int getLastRelabelled() {
+        return lastRelabelled;
+    }
+}
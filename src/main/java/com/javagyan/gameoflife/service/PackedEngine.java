@@ -0,0 +1,91 @@
+package com.javagyan.gameoflife.service;
+
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Steps a bit packed copy of the Universe 64 cells at a time. The next generation is one cell larger on every side,
+ * which is all the room a single tick can take, and is trimmed again when turned back into a Universe.
+ * @author Sanjeev Kumar
+ */
+public final class PackedEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "packed";
+
+    /** Cost units per cell for turning the Universe into a grid and back. */
+    private static final double CONVERSION_COST_PER_CELL = 3;
+
+    /** Rows stepped between two checks of a budget. */
+    static final int BAND_ROWS = 16;
+
+    /** Cost units per word of 64 cells. */
+    private static final double COST_PER_WORD = 60;
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Packs the Universe, steps it and unpacks the result.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        return UniverseUtil.createUniverse(step(UniverseUtil.convertToPackedGrid(universe)));
+    }
+
+    /**
+     * Next generation of a grid, one cell larger on every side so that cell (r, c) of the result is cell
+     * (r - 1, c - 1) of the input.
+     * @param grid
+     * @return PackedGrid
+     */
+    public static PackedGrid step(final PackedGrid grid) {
+        return step(grid, null);
+    }
+
+    /**
+     * Same as step(grid), checking the deadline and the cancellation token of the budget every BAND_ROWS rows. When
+     * either has run out the partly stepped grid is dropped at once and null returned.
+     * @param grid
+     * @param budget null for no checks
+     * @return PackedGrid, null when stopped by the budget
+     */
+    static PackedGrid step(final PackedGrid grid, final PlayBudget budget) {
+        final PackedGrid next = new PackedGrid(grid.getRows() + 2, grid.getColumns() + 2);
+        final long[] words = next.getWords();
+        final int wordsPerRow = next.getWordsPerRow();
+        for (int i = 0; i < next.getRows(); i++) {
+            if ((budget != null) && ((i % BAND_ROWS) == 0) && (budget.check() != null)) {
+                return null;
+            }
+            final int row = i - 1;
+            for (int w = 0; w < wordsPerRow; w++) {
+                final int column = (w * PackedGrid.WORD_SIZE) - 1;
+                words[(i * wordsPerRow) + w] = WordLogic.next(grid.getBits(row, column),
+                        grid.getBits(row - 1, column - 1), grid.getBits(row - 1, column),
+                        grid.getBits(row - 1, column + 1), grid.getBits(row, column - 1),
+                        grid.getBits(row, column + 1), grid.getBits(row + 1, column - 1),
+                        grid.getBits(row + 1, column), grid.getBits(row + 1, column + 1));
+            }
+            words[((i + 1) * wordsPerRow) - 1] &= next.getLastWordMask();
+        }
+        return next;
+    }
+
+    /**
+     * Every word of the board is stepped, on top of the conversions.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        final double wordCount = (profile.getArea() / (double) PackedGrid.WORD_SIZE) + profile.getRows();
+        return (CONVERSION_COST_PER_CELL * profile.getArea()) + (COST_PER_WORD * wordCount);
+    }
+}
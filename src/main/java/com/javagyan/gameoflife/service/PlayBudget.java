@@ -0,0 +1,83 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits on a play: a count of generations, a deadline and a cancellation token, each of them optional. The deadline
+ * is kept on the System.nanoTime clock, so it is not moved by changes of the wall clock.
+ * @author Sanjeev Kumar
+ */
+public final class PlayBudget {
+
+    /** Count of generations after the seed that may be played. */
+    private final int maxGenerations;
+
+    /** Whether there is a deadline. */
+    private final boolean hasDeadline;
+
+    /** Value of System.nanoTime at the deadline. */
+    private final long deadline;
+
+    /** Token to stop the play, null for none. */
+    private final CancellationToken token;
+
+    /**
+     * Constructor. The time starts running when the budget is created.
+     *
+     * @param maxGenerations count of generations after the seed that may be played, Integer.MAX_VALUE for no limit
+     * @param timeout time the play may take, negative for no deadline
+     * @param unit unit of the timeout
+     * @param token token to stop the play, null for none
+     */
+    public PlayBudget(final int maxGenerations, final long timeout, final TimeUnit unit,
+            final CancellationToken token) {
+        if (maxGenerations < 0) {
+            throw new IllegalArgumentException("Generations can not be negative: " + maxGenerations);
+        }
+        this.maxGenerations = maxGenerations;
+        this.hasDeadline = timeout >= 0;
+        this.deadline = hasDeadline ? (System.nanoTime() + unit.toNanos(timeout)) : 0;
+        this.token = token;
+    }
+
+    /**
+     * Budget of a count of generations only.
+     * @param maxGenerations
+     * @return PlayBudget
+     */
+    public static PlayBudget generations(final int maxGenerations) {
+        return new PlayBudget(maxGenerations, -1, TimeUnit.NANOSECONDS, null);
+    }
+
+    /**
+     * Budget of time only.
+     * @param timeout
+     * @param unit
+     * @return PlayBudget
+     */
+    public static PlayBudget timeout(final long timeout, final TimeUnit unit) {
+        return new PlayBudget(Integer.MAX_VALUE, timeout, unit, null);
+    }
+
+    /**
+     * Returns the count of generations after the seed that may be played.
+     * @return int
+     */
+    public int getMaxGenerations() {
+        return maxGenerations;
+    }
+
+    /**
+     * Checks the token and the deadline; the count of generations is checked by the play itself.
+     * @return the reason to stop, null to go on
+     */
+    PlayResult.StopReason check() {
+        if ((token != null) && token.isCancelled()) {
+            return PlayResult.StopReason.CANCELLED;
+        }
+        if (hasDeadline && ((System.nanoTime() - deadline) >= 0)) {
+            return PlayResult.StopReason.DEADLINE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,597 @@
+package com.javagyan.gameoflife.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Remembers the results of play(seed) so that a seed seen before, at any offset, is looked up instead of played again.
+ * The key is the seed trimmed to its ALIVE cells, as UniverseUtil.createUniverse trims it, so a pattern pasted at any
+ * position has the same key. Optionally the key is also the smallest of the eight rotations and reflections of the
+ * seed; the rules do not change under these, so the cached generations are turned back the same way for the caller.
+ *
+ * Results are kept in a least recently used memory tier bounded by a count of seeds and by the bytes of their packed
+ * generations and, if a directory is given, in one file per seed that outlives the process. The files are bounded by
+ * their total bytes too; the least recently used ones, by modification time across restarts, are deleted first.
+ * Concurrent requests for the same key wait for a single computation. Seeds with dead rows or columns on top or on the
+ * left are played without the cache: play(seed) compares generations with the seed as given, so their results depend
+ * on the offset.
+ *
+ * Thread safe.
+ * @author Sanjeev Kumar
+ */
+public final class PlayCache {
+
+    /** Default count of seeds kept in memory. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /** Default bytes of packed generations kept in memory. */
+    public static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+
+    /** Default bytes of cache files kept on disk. */
+    public static final long DEFAULT_DISK_BYTES = 256L << 20;
+
+    /** Logger for problems with the disk tier, which only cost a computation. */
+    private static final Logger LOGGER = Logger.getLogger(PlayCache.class.getName());
+
+    /** First int of every cache file, with the version of the format. */
+    private static final int FILE_MAGIC = 0x474F4C31;
+
+    /** Count of the rotations and reflections of a board. */
+    private static final int SYMMETRIES = 8;
+
+    /** Suffix of cache files. */
+    private static final String FILE_SUFFIX = ".gol";
+
+    /** Service that plays the seeds. */
+    private final GameOfLifeService service;
+
+    /** Directory of the disk tier, null for none. */
+    private final File directory;
+
+    /** Whether rotated and reflected seeds share a key. */
+    private final boolean symmetric;
+
+    /** Count of seeds kept in memory. */
+    private final int capacity;
+
+    /** Bytes of packed generations kept in memory. */
+    private final long memoryLimit;
+
+    /** Bytes of cache files kept on disk. */
+    private final long diskLimit;
+
+    /** Generations after the seed by key, least recently used first. */
+    private final Map<PackedGrid, List<PackedGrid>> memory;
+
+    /** Bytes of the keys and generations in memory, guarded by memory. */
+    private long memoryBytes;
+
+    /** Length of every cache file by name, least recently used first. */
+    private final Map<String, Long> files = new LinkedHashMap<String, Long>(16, 0.75f, true);
+
+    /** Bytes of the cache files, guarded by files. */
+    private long diskBytes;
+
+    /** Computations in progress by key. */
+    private final ConcurrentMap<PackedGrid, FutureTask<List<PackedGrid>>> inFlight =
+            new ConcurrentHashMap<PackedGrid, FutureTask<List<PackedGrid>>>();
+
+    /** Requests answered from memory. */
+    private final AtomicLong memoryHits = new AtomicLong();
+
+    /** Requests answered from disk. */
+    private final AtomicLong diskHits = new AtomicLong();
+
+    /** Requests that waited for the computation of another request. */
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /** Requests that were played. */
+    private final AtomicLong misses = new AtomicLong();
+
+    /** Requests played without the cache. */
+    private final AtomicLong bypassed = new AtomicLong();
+
+    /**
+     * Memory only cache of DEFAULT_CAPACITY seeds, keyed by translation only.
+     */
+    public PlayCache() {
+        this(new GameOfLifeService(), DEFAULT_CAPACITY, null, false);
+    }
+
+    /**
+     * Cache with the default limits of bytes.
+     *
+     * @param service service that plays the seeds
+     * @param capacity count of seeds kept in memory
+     * @param directory directory of the disk tier, created if missing, null for none
+     * @param symmetric whether rotated and reflected seeds share a key
+     */
+    public PlayCache(final GameOfLifeService service, final int capacity, final File directory,
+            final boolean symmetric) {
+        this(service, capacity, DEFAULT_MEMORY_BYTES, directory, DEFAULT_DISK_BYTES, symmetric);
+    }
+
+    /**
+     * Constructor. Cache files already in the directory count against the disk limit.
+     *
+     * @param service service that plays the seeds
+     * @param capacity count of seeds kept in memory
+     * @param memoryLimit bytes of packed generations kept in memory
+     * @param directory directory of the disk tier, created if missing, null for none
+     * @param diskLimit bytes of cache files kept in the directory
+     * @param symmetric whether rotated and reflected seeds share a key
+     */
+    public PlayCache(final GameOfLifeService service, final int capacity, final long memoryLimit,
+            final File directory, final long diskLimit, final boolean symmetric) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if ((memoryLimit < 0) || (diskLimit < 0)) {
+            throw new IllegalArgumentException("Byte limits can not be negative");
+        }
+        if ((directory != null) && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException("Can not create cache directory " + directory);
+        }
+        this.service = service;
+        this.capacity = capacity;
+        this.memoryLimit = memoryLimit;
+        this.directory = directory;
+        this.diskLimit = diskLimit;
+        this.symmetric = symmetric;
+        this.memory = new LinkedHashMap<PackedGrid, List<PackedGrid>>(16, 0.75f, true);
+        if (directory != null) {
+            final File[] existing = directory.listFiles();
+            if (existing != null) {
+                Arrays.sort(existing, new Comparator<File>() {
+                    public int compare(final File a, final File b) {
+                        return Long.valueOf(a.lastModified()).compareTo(b.lastModified());
+                    }
+                });
+                for (final File file : existing) {
+                    if (file.getName().endsWith(FILE_SUFFIX)) {
+                        files.put(file.getName(), file.length());
+                        diskBytes += file.length();
+                    }
+                }
+                evictFiles();
+            }
+        }
+    }
+
+    /**
+     * Same result as GameOfLifeService.play(seed), the seed itself being the first generation.
+     * @param seed
+     * @return List<Universe>
+     */
+    public List<Universe> play(final Universe seed) {
+        final PackedGrid trimmed = UniverseUtil.convertToPackedGrid(UniverseUtil.createUniverse(
+                UniverseUtil.convertToPackedGrid(seed)));
+        if (!UniverseUtil.createUniverse(trimmed).equals(seed)) {
+            bypassed.incrementAndGet();
+            return service.play(seed);
+        }
+        int symmetry = 0;
+        PackedGrid key = trimmed;
+        if (symmetric) {
+            for (int candidate = 1; candidate < SYMMETRIES; candidate++) {
+                final PackedGrid transformed = transform(trimmed, candidate);
+                if (compare(transformed, key) < 0) {
+                    key = transformed;
+                    symmetry = candidate;
+                }
+            }
+        }
+        final List<PackedGrid> generations = lookup(key);
+        final int inverse = inverse(symmetry);
+        final List<Universe> result = new ArrayList<Universe>(generations.size() + 1);
+        result.add(seed);
+        for (final PackedGrid generation : generations) {
+            result.add(UniverseUtil.createUniverse(transform(generation, inverse)));
+        }
+        return result;
+    }
+
+    /**
+     * Requests answered from memory.
+     * @return long
+     */
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    /**
+     * Requests answered from disk.
+     * @return long
+     */
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    /**
+     * Requests that waited for the computation of a concurrent request for the same key.
+     * @return long
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Requests that were played.
+     * @return long
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Requests played without the cache as their seed was not trimmed on top or on the left.
+     * @return long
+     */
+    public long getBypassed() {
+        return bypassed.get();
+    }
+
+    /**
+     * Bytes of the keys and generations held in memory.
+     * @return long
+     */
+    public long getMemoryBytes() {
+        synchronized (memory) {
+            return memoryBytes;
+        }
+    }
+
+    /**
+     * Bytes of the cache files in the directory.
+     * @return long
+     */
+    public long getDiskBytes() {
+        synchronized (files) {
+            return diskBytes;
+        }
+    }
+
+    /**
+     * Share of requests that were not played, coalesced ones included, 0 before the first request.
+     * @return double
+     */
+    public double getHitRate() {
+        final long hits = memoryHits.get() + diskHits.get() + coalesced.get();
+        final long requests = hits + misses.get() + bypassed.get();
+        return (requests == 0) ? 0 : (hits / (double) requests);
+    }
+
+    /**
+     * Generations after the seed of a key, from memory, from a computation in progress, from disk or played.
+     * @param key
+     * @return List<PackedGrid>
+     */
+    private List<PackedGrid> lookup(final PackedGrid key) {
+        synchronized (memory) {
+            final List<PackedGrid> cached = memory.get(key);
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        }
+        final FutureTask<List<PackedGrid>> task = new FutureTask<List<PackedGrid>>(new Callable<List<PackedGrid>>() {
+            public List<PackedGrid> call() {
+                return load(key);
+            }
+        });
+        FutureTask<List<PackedGrid>> running = inFlight.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                inFlight.remove(key, task);
+            }
+        } else {
+            coalesced.incrementAndGet();
+        }
+        try {
+            return running.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the play of the same seed", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads the generations of a key from disk or plays the key, and keeps them in both tiers.
+     * @param key
+     * @return List<PackedGrid>
+     */
+    private List<PackedGrid> load(final PackedGrid key) {
+        synchronized (memory) {
+            final List<PackedGrid> cached = memory.get(key); // put there by a computation that just ended
+            if (cached != null) {
+                memoryHits.incrementAndGet();
+                return cached;
+            }
+        }
+        List<PackedGrid> generations = null;
+        final File file = (directory == null) ? null : fileOf(key);
+        if ((file != null) && file.isFile()) {
+            try {
+                generations = read(file, key);
+            } catch (final IOException e) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable cache file " + file, e);
+            }
+        }
+        if (generations != null) {
+            diskHits.incrementAndGet();
+            synchronized (files) {
+                files.get(file.getName()); // most recently used now
+            }
+            if (!file.setLastModified(System.currentTimeMillis())) {
+                LOGGER.fine("Can not touch cache file " + file);
+            }
+        } else {
+            misses.incrementAndGet();
+            final List<Universe> played = service.play(UniverseUtil.createUniverse(key));
+            generations = new ArrayList<PackedGrid>(played.size() - 1);
+            for (int i = 1; i < played.size(); i++) {
+                generations.add(UniverseUtil.convertToPackedGrid(played.get(i)));
+            }
+            generations = Collections.unmodifiableList(generations);
+            if (file != null) {
+                try {
+                    write(file, key, generations);
+                    synchronized (files) {
+                        final Long replaced = files.put(file.getName(), file.length());
+                        diskBytes += file.length() - ((replaced == null) ? 0 : replaced);
+                        evictFiles();
+                    }
+                } catch (final IOException e) {
+                    LOGGER.log(Level.WARNING, "Can not write cache file " + file, e);
+                }
+            }
+        }
+        synchronized (memory) {
+            final List<PackedGrid> replaced = memory.put(key, generations);
+            memoryBytes += bytesOf(key, generations) - ((replaced == null) ? 0 : bytesOf(key, replaced));
+            final Iterator<Map.Entry<PackedGrid, List<PackedGrid>>> eldest = memory.entrySet().iterator();
+            while ((memory.size() > 1) && ((memory.size() > capacity) || (memoryBytes > memoryLimit))) {
+                final Map.Entry<PackedGrid, List<PackedGrid>> entry = eldest.next();
+                memoryBytes -= bytesOf(entry.getKey(), entry.getValue());
+                eldest.remove();
+            }
+        }
+        return generations;
+    }
+
+    /**
+     * Bytes of the words of a key and its generations.
+     * @param key
+     * @param generations
+     * @return long
+     */
+    private static long bytesOf(final PackedGrid key, final List<PackedGrid> generations) {
+        long words = key.getWords().length;
+        for (final PackedGrid generation : generations) {
+            words += generation.getWords().length;
+        }
+        return words * (Long.SIZE / Byte.SIZE);
+    }
+
+    /**
+     * Deletes the least recently used cache files until the rest fit the disk limit. The caller holds files.
+     */
+    private void evictFiles() {
+        final Iterator<Map.Entry<String, Long>> eldest = files.entrySet().iterator();
+        while ((diskBytes > diskLimit) && eldest.hasNext()) {
+            final Map.Entry<String, Long> entry = eldest.next();
+            final File file = new File(directory, entry.getKey());
+            if (file.delete() || !file.exists()) {
+                diskBytes -= entry.getValue();
+                eldest.remove();
+            } else {
+                LOGGER.warning("Can not delete cache file " + file);
+            }
+        }
+    }
+
+    /**
+     * File of a key, named after a hash of its cells. The key is stored in the file as well, to tell hash collisions
+     * apart.
+     * @param key
+     * @return File
+     */
+    private File fileOf(final PackedGrid key) {
+        long hash = 0xCBF29CE484222325L;
+        hash = (hash ^ key.getRows()) * 0x100000001B3L;
+        hash = (hash ^ key.getColumns()) * 0x100000001B3L;
+        for (final long word : key.getWords()) {
+            hash = (hash ^ word) * 0x100000001B3L;
+        }
+        return new File(directory, String.format("%016x", hash) + FILE_SUFFIX);
+    }
+
+    /**
+     * Reads the generations of a key from its file.
+     * @param file
+     * @param key
+     * @return List<PackedGrid>, null if the file holds another key
+     * @throws IOException
+     */
+    private static List<PackedGrid> read(final File file, final PackedGrid key) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a cache file");
+            }
+            if (!key.equals(readGrid(in))) {
+                return null;
+            }
+            final int count = in.readInt();
+            final List<PackedGrid> generations = new ArrayList<PackedGrid>(count);
+            for (int i = 0; i < count; i++) {
+                generations.add(readGrid(in));
+            }
+            return Collections.unmodifiableList(generations);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the generations of a key to a temporary file and moves it in place, so that readers never see half a
+     * file.
+     * @param file
+     * @param key
+     * @param generations
+     * @throws IOException
+     */
+    private static void write(final File file, final PackedGrid key, final List<PackedGrid> generations)
+            throws IOException {
+        final File temporary = File.createTempFile("play", ".tmp", file.getParentFile());
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            out.writeInt(FILE_MAGIC);
+            writeGrid(out, key);
+            out.writeInt(generations.size());
+            for (final PackedGrid generation : generations) {
+                writeGrid(out, generation);
+            }
+        } finally {
+            out.close();
+        }
+        if (!temporary.renameTo(file)) {
+            if (!temporary.delete()) {
+                temporary.deleteOnExit();
+            }
+            throw new IOException("Can not move " + temporary + " to " + file);
+        }
+    }
+
+    /**
+     * Reads a grid written by writeGrid.
+     * @param in
+     * @return PackedGrid
+     * @throws IOException
+     */
+    private static PackedGrid readGrid(final DataInputStream in) throws IOException {
+        final PackedGrid grid = new PackedGrid(in.readInt(), in.readInt());
+        final long[] words = grid.getWords();
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return grid;
+    }
+
+    /**
+     * Writes the size and words of a grid.
+     * @param out
+     * @param grid
+     * @throws IOException
+     */
+    private static void writeGrid(final DataOutputStream out, final PackedGrid grid) throws IOException {
+        out.writeInt(grid.getRows());
+        out.writeInt(grid.getColumns());
+        for (final long word : grid.getWords()) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Rotation or reflection of a grid. Bit 2 of the symmetry transposes the grid, then bit 1 turns it upside down
+     * and bit 0 mirrors it left to right.
+     * @param grid
+     * @param symmetry 0 to 7, 0 for the grid itself
+     * @return PackedGrid
+     */
+    static PackedGrid transform(final PackedGrid grid, final int symmetry) {
+        if (symmetry == 0) {
+            return grid;
+        }
+        final boolean transpose = (symmetry & 4) != 0;
+        final int rows = transpose ? grid.getColumns() : grid.getRows();
+        final int columns = transpose ? grid.getRows() : grid.getColumns();
+        final PackedGrid result = new PackedGrid(rows, columns);
+        for (int i = 0; i < grid.getRows(); i++) {
+            for (int j = 0; j < grid.getColumns(); j++) {
+                if (grid.isAlive(i, j)) {
+                    int row = transpose ? j : i;
+                    int column = transpose ? i : j;
+                    if ((symmetry & 2) != 0) {
+                        row = rows - 1 - row;
+                    }
+                    if ((symmetry & 1) != 0) {
+                        column = columns - 1 - column;
+                    }
+                    result.set(row, column, true);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Symmetry that undoes the given one. Turning a grid upside down before transposing it is the same as mirroring
+     * it after, so the flips of a transposing symmetry swap places.
+     * @param symmetry
+     * @return int
+     */
+    static int inverse(final int symmetry) {
+        if ((symmetry & 4) == 0) {
+            return symmetry;
+        }
+        return 4 | ((symmetry & 1) << 1) | ((symmetry & 2) >> 1);
+    }
+
+    /**
+     * Orders grids by size and then by words, to pick one of the symmetries of a seed as its key.
+     * @param a
+     * @param b
+     * @return negative, zero or positive as a is before, equal to or after b
+     */
+    private static int compare(final PackedGrid a, final PackedGrid b) {
+        if (a.getRows() != b.getRows()) {
+            return (a.getRows() < b.getRows()) ? -1 : 1;
+        }
+        if (a.getColumns() != b.getColumns()) {
+            return (a.getColumns() < b.getColumns()) ? -1 : 1;
+        }
+        final long[] wordsA = a.getWords();
+        final long[] wordsB = b.getWords();
+        for (int i = 0; i < wordsA.length; i++) {
+            if (wordsA[i] != wordsB[i]) {
+                return (wordsA[i] < wordsB[i]) ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+}
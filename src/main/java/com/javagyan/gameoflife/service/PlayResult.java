@@ -0,0 +1,72 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.List;
+
+import com.javagyan.gameoflife.model.Universe;
+
+/**
+ * Generations played within a budget, and why the play stopped.
+ * @author Sanjeev Kumar
+ */
+public final class PlayResult {
+
+    /**
+     * Reasons for a play to stop.
+     */
+    public enum StopReason {
+        /** The pattern died out or repeated, as in play(seed). */
+        COMPLETED,
+        /** The budget of generations was used up. */
+        GENERATION_BUDGET,
+        /** The deadline passed. */
+        DEADLINE,
+        /** The cancellation token was cancelled. */
+        CANCELLED;
+    }
+
+    /**
+     * Generations played, the seed first.
+     */
+    private final List<Universe> generations;
+
+    /**
+     * Why the play stopped.
+     */
+    private final StopReason stopReason;
+
+    /**
+     * Constructor.
+     *
+     * @param generations1
+     * @param stopReason1
+     */
+    public PlayResult(final List<Universe> generations1, final StopReason stopReason1) {
+        generations = generations1;
+        stopReason  = stopReason1;
+    }
+
+    /**
+     * Returns the generations played, the seed first. A generation that was being computed when the play stopped is
+     * not included.
+     * @return List<Universe>
+     */
+    public List<Universe> getGenerations() {
+        return generations;
+    }
+
+    /**
+     * Returns why the play stopped.
+     * @return StopReason
+     */
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Checks if the play ran to its end, so that the generations are those play(seed) would give without its limit.
+     * @return boolean
+     */
+    public boolean isCompleted() {
+        return stopReason == StopReason.COMPLETED;
+    }
+}
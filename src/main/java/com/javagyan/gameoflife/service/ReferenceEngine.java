@@ -0,0 +1,46 @@
+package com.javagyan.gameoflife.service;
+
+import com.javagyan.gameoflife.model.Universe;
+
+/**
+ * The original algorithm of GameOfLifeService: the Universe is copied to a char array, expanded where the next
+ * generation may need room, and every cell counts its eight neighbours.
+ * @author Sanjeev Kumar
+ */
+public final class ReferenceEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "reference";
+
+    /** Cost units per cell. */
+    private static final double COST_PER_CELL = 20;
+
+    /** Service with no engine set, which falls back to its own algorithm. */
+    private final GameOfLifeService service = new GameOfLifeService();
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Delegates to GameOfLifeService.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        return service.nextGeneration(universe);
+    }
+
+    /**
+     * Every cell of the board is visited with eight lookups.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        return COST_PER_CELL * profile.getArea();
+    }
+}
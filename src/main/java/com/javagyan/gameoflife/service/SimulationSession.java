@@ -0,0 +1,265 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Lets a caller move back and forth through the generations of a seed. Generations are not limited to the first ten
+ * as they are in play(seed).
+ *
+ * Snapshots of visited generations are cached in packed form. A seek starts from the closest snapshot at or before the
+ * target and replays from there, dropping new snapshots at the target and at distances 1, 2, 4, 8, ... before it. With
+ * the GEOMETRIC policy the cache keeps the same shape when full: snapshots are thinned where they are crowded, so there
+ * are about as many within 2 generations of the cursor as between 512 and 1024 away. Moving to generation N then costs
+ * a replay that is at most about as long as the distance moved, and previous() is a replay of a handful of
+ * generations. The RECENT policy evicts the least recently used snapshot instead. The seed is never evicted.
+ *
+ * Not thread safe.
+ * @author Sanjeev Kumar
+ */
+public final class SimulationSession {
+
+    /** Default count of cached snapshots. */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    /**
+     * Ways to pick the snapshot dropped from a full cache.
+     */
+    public enum CachePolicy {
+        /** Keep snapshots spread at geometric distances from the cursor. */
+        GEOMETRIC,
+        /** Drop the least recently used snapshot. */
+        RECENT;
+    }
+
+    /** Service that generates the next generation. */
+    private final GameOfLifeService service;
+
+    /** Snapshots by generation number. */
+    private final TreeMap<Integer, Snapshot> snapshots = new TreeMap<Integer, Snapshot>();
+
+    /** Count of snapshots kept besides the seed. */
+    private final int cacheSize;
+
+    /** Eviction policy. */
+    private final CachePolicy policy;
+
+    /** Generation number of the cursor. */
+    private int generation;
+
+    /** Universe at the cursor. */
+    private Universe current;
+
+    /** Increases on every use of a snapshot, for the RECENT policy. */
+    private long clock;
+
+    /**
+     * Session with the default cache.
+     *
+     * @param seed
+     */
+    public SimulationSession(final Universe seed) {
+        this(seed, DEFAULT_CACHE_SIZE, CachePolicy.GEOMETRIC);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param seed
+     * @param cacheSize count of snapshots kept besides the seed
+     * @param policy
+     */
+    public SimulationSession(final Universe seed, final int cacheSize, final CachePolicy policy) {
+        this(seed, cacheSize, policy, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param seed
+     * @param cacheSize count of snapshots kept besides the seed
+     * @param policy
+     * @param engine engine that generates the next generation, null for the algorithm of GameOfLifeService
+     */
+    public SimulationSession(final Universe seed, final int cacheSize, final CachePolicy policy,
+            final LifeEngine engine) {
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        this.policy = policy;
+        this.service = new GameOfLifeService(engine);
+        this.current = seed;
+        snapshots.put(0, new Snapshot(UniverseUtil.convertToPackedGrid(seed)));
+    }
+
+    /**
+     * Moves the cursor to the given generation. The seed is generation 0.
+     * @param target
+     * @return Universe at the target
+     */
+    public Universe seek(final int target) {
+        if (target < 0) {
+            throw new IllegalArgumentException("Generation can not be negative: " + target);
+        }
+        if (target == generation) {
+            return current;
+        }
+        Universe universe;
+        int at;
+        if ((target > generation) && (snapshots.floorKey(target) <= generation)) {
+            at = generation; // no snapshot beats playing on from the cursor
+            universe = current;
+        } else {
+            final Map.Entry<Integer, Snapshot> start = snapshots.floorEntry(target);
+            start.getValue().lastUsed = ++clock;
+            at = start.getKey();
+            universe = UniverseUtil.createUniverse(start.getValue().grid);
+        }
+        generation = target;
+        while (at < target) {
+            universe = service.nextGeneration(universe);
+            at++;
+            if (Integer.bitCount(target - at) <= 1) { // at the target or a power of two before it
+                remember(at, universe);
+            }
+        }
+        current = universe;
+        return current;
+    }
+
+    /**
+     * Moves the cursor one generation forward.
+     * @return Universe
+     */
+    public Universe next() {
+        return seek(generation + 1);
+    }
+
+    /**
+     * Moves the cursor one generation back.
+     * @return Universe
+     */
+    public Universe previous() {
+        if (generation == 0) {
+            throw new IllegalStateException("Already at the seed");
+        }
+        return seek(generation - 1);
+    }
+
+    /**
+     * Universe at the cursor.
+     * @return Universe
+     */
+    public Universe current() {
+        return current;
+    }
+
+    /**
+     * Generation number of the cursor.
+     * @return int
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Count of cached snapshots, the seed included.
+     * @return int
+     */
+    public int getCachedSnapshots() {
+        return snapshots.size();
+    }
+
+    /**
+     * Caches a snapshot, evicting another one if the cache is full.
+     * @param at
+     * @param universe
+     */
+    private void remember(final int at, final Universe universe) {
+        if (snapshots.containsKey(at)) {
+            snapshots.get(at).lastUsed = ++clock;
+            return;
+        }
+        final Snapshot snapshot = new Snapshot(UniverseUtil.convertToPackedGrid(universe));
+        snapshot.lastUsed = ++clock;
+        snapshots.put(at, snapshot);
+        if (snapshots.size() > (cacheSize + 1)) {
+            snapshots.remove((policy == CachePolicy.GEOMETRIC) ? geometricVictim() : leastRecentlyUsed());
+        }
+    }
+
+    /**
+     * Snapshot not used for the longest time.
+     * @return generation number
+     */
+    private int leastRecentlyUsed() {
+        int victim = -1;
+        long oldest = Long.MAX_VALUE;
+        for (final Map.Entry<Integer, Snapshot> entry : snapshots.entrySet()) {
+            if ((entry.getKey() != 0) && (entry.getValue().lastUsed < oldest)) {
+                oldest = entry.getValue().lastUsed;
+                victim = entry.getKey();
+            }
+        }
+        return victim;
+    }
+
+    /**
+     * Puts snapshots in buckets by log2 of their distance to the cursor and picks one from the most crowded bucket,
+     * preferring buckets further away when counts are equal.
+     * @return generation number
+     */
+    private int geometricVictim() {
+        final int[] counts = new int[Integer.SIZE + 1];
+        for (final Integer at : snapshots.keySet()) {
+            if (at != 0) {
+                counts[bucket(at)]++;
+            }
+        }
+        int crowded = 0;
+        for (int i = 1; i < counts.length; i++) {
+            if (counts[i] >= counts[crowded]) {
+                crowded = i;
+            }
+        }
+        for (final Integer at : snapshots.keySet()) {
+            if ((at != 0) && (bucket(at) == crowded)) {
+                return at;
+            }
+        }
+        return leastRecentlyUsed();
+    }
+
+    /**
+     * Bucket of a snapshot: 0 at the cursor, k + 1 for a distance in [2^k, 2^(k+1)).
+     * @param at
+     * @return int
+     */
+    private int bucket(final int at) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(Math.abs(at - generation));
+    }
+
+    /**
+     * Cached generation.
+     */
+    private static final class Snapshot {
+        /** cells of the generation. */
+        private final PackedGrid grid;
+
+        /** value of the clock on last use. */
+        private long lastUsed;
+
+        /**
+         * Constructor.
+         * @param grid
+         */
+        Snapshot(final PackedGrid grid) {
+            this.grid = grid;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.javagyan.gameoflife.service;
+
+import java.util.Arrays;
+
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+/**
+ * Steps only ALIVE cells and their neighbours, so the work follows the population rather than the area of the board.
+ * Every ALIVE cell adds its key to the list of each of its eight neighbours; after sorting, the length of each run of
+ * equal keys is the count of ALIVE neighbours of that cell.
+ * @author Sanjeev Kumar
+ */
+public final class SparseEngine implements LifeEngine {
+
+    /** Name of the engine. */
+    public static final String NAME = "sparse";
+
+    /** Cost units per cell for turning the Universe into a set and back. */
+    private static final double CONVERSION_COST_PER_CELL = 3;
+
+    /** Cost units per neighbour key and sort step. */
+    private static final double COST_PER_KEY = 4;
+
+    /** Offsets of the eight neighbours. */
+    private static final int[][] NEIGHBOURS = { {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}};
+
+    /**
+     * Name of the engine.
+     * @return String
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Turns the Universe into a set, steps it and turns the result back.
+     * @param universe
+     * @return Universe
+     */
+    public Universe nextGeneration(final Universe universe) {
+        return UniverseUtil.createUniverse(step(CellSet.of(universe, 0, 0)));
+    }
+
+    /**
+     * Next generation of a set of cells, at the same absolute positions.
+     * @param cells
+     * @return CellSet
+     */
+    public static CellSet step(final CellSet cells) {
+        final int size = cells.size();
+        final long[] candidates = new long[size * NEIGHBOURS.length];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            final long key = cells.getKey(i);
+            final int row = CellSet.row(key);
+            final int column = CellSet.column(key);
+            for (final int[] offset : NEIGHBOURS) {
+                candidates[count++] = CellSet.key(row + offset[0], column + offset[1]);
+            }
+        }
+        Arrays.sort(candidates, 0, count);
+
+        long[] result = new long[Math.min(count, (size * 2) + 8)];
+        int nextSize = 0;
+        int alivePos = 0;
+        int i = 0;
+        while (i < count) {
+            final long key = candidates[i];
+            int run = 1;
+            while (((i + run) < count) && (candidates[i + run] == key)) {
+                run++;
+            }
+            i += run;
+            while ((alivePos < size) && (cells.getKey(alivePos) < key)) {
+                alivePos++;
+            }
+            final boolean alive = (alivePos < size) && (cells.getKey(alivePos) == key);
+            if ((run == UniverseUtil.BRING_TO_LIFE_COUNT)
+                    || (alive && (run >= UniverseUtil.LONELILESS_LIMIT) && (run <= UniverseUtil.OVER_CROWDING_LIMIT))) {
+                if (nextSize == result.length) {
+                    result = Arrays.copyOf(result, (result.length * 2) + 8);
+                }
+                result[nextSize++] = key;
+            }
+        }
+        return new CellSet(result, nextSize);
+    }
+
+    /**
+     * Sorting eight keys per ALIVE cell, on top of the conversions.
+     * @param profile
+     * @return double
+     */
+    public double estimateCost(final BoardProfile profile) {
+        final double keys = 8.0 * profile.getPopulation();
+        final double sortSteps = (keys < 2) ? 1 : (Math.log(keys) / Math.log(2));
+        return (CONVERSION_COST_PER_CELL * profile.getArea()) + (COST_PER_KEY * keys * sortSteps);
+    }
+}
@@ -0,0 +1,48 @@
+package com.javagyan.gameoflife.service;
+
+/**
+ * Game of Life rules applied to 64 cells at a time. Each argument holds one cell per bit and the eight neighbour words
+ * are lined up with the center word, so bit i of every argument belongs to the same cell.
+ * @author Sanjeev Kumar
+ */
+final class WordLogic {
+
+    /**
+     * Next state of 64 cells. Neighbours are summed into a three bit counter (ones, twos, fours); a count of eight
+     * wraps to zero, which is harmless as neither zero nor eight keeps a cell alive.
+     * @param center
+     * @param n0
+     * @param n1
+     * @param n2
+     * @param n3
+     * @param n4
+     * @param n5
+     * @param n6
+     * @param n7
+     * @return long
+     */
+    static long next(final long center, final long n0, final long n1, final long n2, final long n3, final long n4,
+            final long n5, final long n6, final long n7) {
+        long ones = 0;
+        long twos = 0;
+        long fours = 0;
+        long carry;
+        long carry2;
+
+        carry = ones & n0; ones ^= n0; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+        carry = ones & n1; ones ^= n1; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+        carry = ones & n2; ones ^= n2; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+        carry = ones & n3; ones ^= n3; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+        carry = ones & n4; ones ^= n4; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+        carry = ones & n5; ones ^= n5; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+        carry = ones & n6; ones ^= n6; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+        carry = ones & n7; ones ^= n7; carry2 = twos & carry; twos ^= carry; fours ^= carry2;
+
+        // alive with two or three neighbours, or dead with exactly three neighbours
+        return ~fours & twos & (ones | center);
+    }
+
+    /** Private constructor so that construction of instance is avoided from outside the class. */
+    private WordLogic() {
+    }
+}
@@ -5,6 +5,7 @@ import java.util.List;
 
 import com.javagyan.gameoflife.model.Universe;
 import com.javagyan.gameoflife.service.GameOfLifeService;
+import com.javagyan.gameoflife.service.LifeEngines;
 
 /**
  * Singleton class that starts the play.
@@ -34,13 +35,16 @@ public final class GameOfLifePlayer {
     }
 
     /**
-     * Delegate the play to GameOfLifeService.
+     * Delegate the play to GameOfLifeService. The engine named by the gameoflife.engine system property is used if it
+     * is set, the original algorithm of GameOfLifeService otherwise.
      *
      * @param seed
      * @return list
      */
     public List<Universe> playGameOfLife(final Universe seed) {
-        GameOfLifeService gol = new GameOfLifeService();
+        final String engineName = System.getProperty(LifeEngines.ENGINE_PROPERTY);
+        GameOfLifeService gol = (engineName == null) ? new GameOfLifeService()
+                : new GameOfLifeService(LifeEngines.forName(engineName));
         return gol.play(seed);
     }
 }
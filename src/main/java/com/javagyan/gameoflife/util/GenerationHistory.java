@@ -0,0 +1,492 @@
+package com.javagyan.gameoflife.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Universe;
+
+/**
+ * Stores a long run of generations in compressed form. Every few generations a keyframe is stored as run lengths of
+ * the packed cells, and the generations in between are stored as run lengths of the XOR against the generation before
+ * them. Since each generation is trimmed to its own boundary, a delta also records by how much the new generation is
+ * shifted against the previous one. A tick moves the boundary by at most one cell, so the sizes of the two boundaries
+ * often leave a single shift; otherwise the candidates are compared on three sample rows only, and just the chosen
+ * delta is built. A generation is stored as a keyframe on the keyframe interval, or when its delta would change more
+ * cells than it has ALIVE.
+ *
+ * Generation N is rebuilt by decoding the nearest keyframe at or before N and applying deltas up to N. Encoded frames
+ * beyond the memory budget are moved to a spill file, oldest first, and read back when needed.
+ *
+ * Not thread safe.
+ * @author Sanjeev Kumar
+ */
+public final class GenerationHistory implements Closeable {
+
+    /** Default count of generations from one keyframe to the next. */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    /** Count of generations from one keyframe to the next. */
+    private final int keyframeInterval;
+
+    /** Bytes of encoded frames that may be kept in memory. */
+    private final long memoryBudget;
+
+    /** File that takes frames beyond the memory budget, null to keep everything in memory. */
+    private final File spillFile;
+
+    /** Stored frames, one per generation. */
+    private final List<Frame> frames = new ArrayList<Frame>();
+
+    /** Packed form of the last added generation, the base of the next delta. */
+    private PackedGrid last;
+
+    /** Last rebuilt generation, reused when reading forward. */
+    private PackedGrid decoded;
+
+    /** Generation number of decoded. */
+    private int decodedIndex = -1;
+
+    /** Bytes of encoded frames held in memory. */
+    private long memoryBytes;
+
+    /** Bytes of frames written to the spill file. */
+    private long spilledBytes;
+
+    /** Index of the oldest frame that is still in memory. */
+    private int firstInMemory;
+
+    /** Opened on first spill. */
+    private RandomAccessFile spill;
+
+    /** Set by close. */
+    private boolean closed;
+
+    /**
+     * History that keeps everything in memory.
+     */
+    public GenerationHistory() {
+        this(DEFAULT_KEYFRAME_INTERVAL, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param keyframeInterval count of generations from one keyframe to the next
+     * @param memoryBudget bytes of encoded frames that may be kept in memory
+     * @param spillFile file that takes frames beyond the budget, null to ignore the budget and keep all in memory
+     */
+    public GenerationHistory(final int keyframeInterval, final long memoryBudget, final File spillFile) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+        this.memoryBudget = memoryBudget;
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * Appends the next generation.
+     * @param universe
+     * @throws IOException when frames can not be spilled
+     */
+    public void add(final Universe universe) throws IOException {
+        checkOpen();
+        final PackedGrid grid = UniverseUtil.convertToPackedGrid(universe);
+        Frame frame = null;
+        if ((last != null) && ((frames.size() % keyframeInterval) != 0)) {
+            frame = encodeDelta(last, grid);
+        }
+        if (frame == null) {
+            frame = new Frame(grid.getRows(), grid.getColumns(), 0, 0, true, encode(grid.getWords()));
+        }
+        frames.add(frame);
+        memoryBytes += frame.length;
+        last = grid;
+        if ((spillFile != null) && (memoryBytes > memoryBudget)) {
+            spillOldest();
+        }
+    }
+
+    /**
+     * Rebuilds a generation. The seed is generation 0.
+     * @param generation
+     * @return Universe
+     * @throws IOException when a spilled frame can not be read
+     */
+    public Universe get(final int generation) throws IOException {
+        checkOpen();
+        if ((generation < 0) || (generation >= frames.size())) {
+            throw new IndexOutOfBoundsException("Generation " + generation + " of " + frames.size());
+        }
+        int keyframe = generation;
+        while (!frames.get(keyframe).key) {
+            keyframe--;
+        }
+        int index;
+        PackedGrid grid;
+        if ((decodedIndex >= keyframe) && (decodedIndex <= generation)) {
+            index = decodedIndex;
+            grid = decoded;
+        } else {
+            index = keyframe;
+            grid = decode(null, frames.get(keyframe));
+        }
+        while (index < generation) {
+            index++;
+            grid = decode(grid, frames.get(index));
+        }
+        decoded = grid;
+        decodedIndex = generation;
+        return UniverseUtil.createUniverse(grid);
+    }
+
+    /**
+     * Count of stored generations.
+     * @return int
+     */
+    public int size() {
+        return frames.size();
+    }
+
+    /**
+     * Bytes of encoded frames held in memory.
+     * @return long
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Bytes of frames moved to the spill file.
+     * @return long
+     */
+    public long getSpilledBytes() {
+        return spilledBytes;
+    }
+
+    /**
+     * Closes and deletes the spill file. The history can not be read or added to afterwards.
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        closed = true;
+        if (spill != null) {
+            spill.close();
+            spill = null;
+            if (!spillFile.delete()) {
+                spillFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Fails once the history has been closed, as spilled frames are gone with the spill file.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("history closed");
+        }
+    }
+
+    /**
+     * Moves frames to the spill file, oldest first, until memory use is within the budget. The newest frame always
+     * stays in memory.
+     * @throws IOException
+     */
+    private void spillOldest() throws IOException {
+        if (spill == null) {
+            spill = new RandomAccessFile(spillFile, "rw");
+            spill.setLength(0);
+        }
+        while ((memoryBytes > memoryBudget) && (firstInMemory < (frames.size() - 1))) {
+            final Frame frame = frames.get(firstInMemory++);
+            frame.offset = spill.length();
+            spill.seek(frame.offset);
+            spill.write(frame.data);
+            frame.data = null;
+            memoryBytes -= frame.length;
+            spilledBytes += frame.length;
+        }
+    }
+
+    /**
+     * Encoded bytes of a frame, read back from the spill file if needed.
+     * @param frame
+     * @return byte[]
+     * @throws IOException
+     */
+    private byte[] dataOf(final Frame frame) throws IOException {
+        if (frame.data != null) {
+            return frame.data;
+        }
+        final byte[] data = new byte[frame.length];
+        spill.seek(frame.offset);
+        spill.readFully(data);
+        return data;
+    }
+
+    /**
+     * Encodes a generation as a delta against the previous one, null when a keyframe would store fewer cells or the
+     * boundaries are too far apart for a single tick.
+     * @param previous
+     * @param grid
+     * @return Frame
+     */
+    private static Frame encodeDelta(final PackedGrid previous, final PackedGrid grid) {
+        final int minRowShift = Math.max(-1, grid.getRows() - previous.getRows() - 1);
+        final int maxRowShift = Math.min(1, (previous.getRows() + 1) - grid.getRows());
+        final int minColumnShift = Math.max(-1, grid.getColumns() - previous.getColumns() - 1);
+        final int maxColumnShift = Math.min(1, (previous.getColumns() + 1) - grid.getColumns());
+        if ((minRowShift > maxRowShift) || (minColumnShift > maxColumnShift)) {
+            return null;
+        }
+        int rowShift = minRowShift;
+        int columnShift = minColumnShift;
+        if ((minRowShift != maxRowShift) || (minColumnShift != maxColumnShift)) {
+            final int[] samples = {0, grid.getRows() / 2, grid.getRows() - 1};
+            int bestChanges = Integer.MAX_VALUE;
+            for (int r = minRowShift; r <= maxRowShift; r++) {
+                for (int c = minColumnShift; c <= maxColumnShift; c++) {
+                    int changes = 0;
+                    for (final int row : samples) {
+                        changes += changedCells(previous, grid, row, r, c);
+                    }
+                    if (changes < bestChanges) {
+                        bestChanges = changes;
+                        rowShift = r;
+                        columnShift = c;
+                    }
+                }
+            }
+        }
+
+        final long[] words = grid.getWords();
+        final long[] diff = new long[words.length];
+        final int wordsPerRow = grid.getWordsPerRow();
+        int changes = 0;
+        int population = 0;
+        for (int i = 0; i < grid.getRows(); i++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                final int at = (i * wordsPerRow) + w;
+                long bits = previous.getBits(i + rowShift, (w * PackedGrid.WORD_SIZE) + columnShift) ^ words[at];
+                if (w == (wordsPerRow - 1)) {
+                    bits &= grid.getLastWordMask();
+                }
+                diff[at] = bits;
+                changes += Long.bitCount(bits);
+                population += Long.bitCount(words[at]);
+            }
+        }
+        if (changes > population) {
+            return null;
+        }
+        return new Frame(grid.getRows(), grid.getColumns(), rowShift, columnShift, false, encode(diff));
+    }
+
+    /**
+     * Count of cells of one row of the grid that differ from the previous generation under the given shift.
+     * @param previous
+     * @param grid
+     * @param row
+     * @param rowShift
+     * @param columnShift
+     * @return int
+     */
+    private static int changedCells(final PackedGrid previous, final PackedGrid grid, final int row,
+            final int rowShift, final int columnShift) {
+        if ((row < 0) || (row >= grid.getRows())) {
+            return 0;
+        }
+        final int wordsPerRow = grid.getWordsPerRow();
+        int changes = 0;
+        for (int w = 0; w < wordsPerRow; w++) {
+            long bits = previous.getBits(row + rowShift, (w * PackedGrid.WORD_SIZE) + columnShift)
+                    ^ grid.getWords()[(row * wordsPerRow) + w];
+            if (w == (wordsPerRow - 1)) {
+                bits &= grid.getLastWordMask();
+            }
+            changes += Long.bitCount(bits);
+        }
+        return changes;
+    }
+
+    /**
+     * Rebuilds the generation of a frame.
+     * @param previous generation before the frame, unused for keyframes
+     * @param frame
+     * @return PackedGrid
+     * @throws IOException
+     */
+    private PackedGrid decode(final PackedGrid previous, final Frame frame) throws IOException {
+        final PackedGrid grid = new PackedGrid(frame.rows, frame.columns);
+        final long[] words = grid.getWords();
+        if (!frame.key) {
+            final long[] base = shifted(previous, frame.rowShift, frame.columnShift, frame.rows, frame.columns);
+            System.arraycopy(base, 0, words, 0, words.length);
+        }
+        final byte[] data = dataOf(frame);
+        int pos = 0;
+        long bit = 0;
+        boolean alive = false;
+        while (pos < data.length) {
+            long run = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                run |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (alive) {
+                flip(words, bit, bit + run);
+            }
+            bit += run;
+            alive = !alive;
+        }
+        return grid;
+    }
+
+    /**
+     * Words of the given size where cell (r, c) is cell (r + rowShift, c + columnShift) of the source grid.
+     * @param source
+     * @param rowShift
+     * @param columnShift
+     * @param rows
+     * @param columns
+     * @return long[]
+     */
+    private static long[] shifted(final PackedGrid source, final int rowShift, final int columnShift,
+            final int rows, final int columns) {
+        final PackedGrid target = new PackedGrid(rows, columns);
+        final long[] words = target.getWords();
+        final int wordsPerRow = target.getWordsPerRow();
+        for (int i = 0; i < rows; i++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                words[(i * wordsPerRow) + w] =
+                        source.getBits(i + rowShift, (w * PackedGrid.WORD_SIZE) + columnShift);
+            }
+            if (wordsPerRow > 0) {
+                words[((i + 1) * wordsPerRow) - 1] &= target.getLastWordMask();
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Run length encoding of the bits, starting with a run of zeros and alternating. A trailing run of zeros is left
+     * out.
+     * @param words
+     * @return byte[]
+     */
+    private static byte[] encode(final long[] words) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        boolean alive = false;
+        long run = 0;
+        for (final long word : words) {
+            int pos = 0;
+            while (pos < PackedGrid.WORD_SIZE) {
+                final long differing = (alive ? ~word : word) >>> pos;
+                final int length = (differing == 0) ? (PackedGrid.WORD_SIZE - pos)
+                        : Math.min(Long.numberOfTrailingZeros(differing), PackedGrid.WORD_SIZE - pos);
+                run += length;
+                pos += length;
+                if (pos < PackedGrid.WORD_SIZE) {
+                    writeVarLong(out, run);
+                    run = 0;
+                    alive = !alive;
+                }
+            }
+        }
+        if (alive) {
+            writeVarLong(out, run);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a number using seven bits per byte.
+     * @param out
+     * @param value
+     */
+    private static void writeVarLong(final ByteArrayOutputStream out, final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    /**
+     * Flips the bits from start (inclusive) to end (exclusive).
+     * @param words
+     * @param start
+     * @param end
+     */
+    private static void flip(final long[] words, final long start, final long end) {
+        long bit = start;
+        while (bit < end) {
+            final int index = (int) (bit / PackedGrid.WORD_SIZE);
+            final int from = (int) (bit % PackedGrid.WORD_SIZE);
+            final int to = (int) Math.min(PackedGrid.WORD_SIZE, (end - bit) + from);
+            final long high = (to == PackedGrid.WORD_SIZE) ? -1L : ((1L << to) - 1);
+            words[index] ^= high & ~((1L << from) - 1);
+            bit += to - from;
+        }
+    }
+
+    /**
+     * One stored generation.
+     */
+    private static final class Frame {
+        /** size of the generation. */
+        private final int rows;
+
+        /** size of the generation. */
+        private final int columns;
+
+        /** shift against the previous generation, for deltas. */
+        private final int rowShift;
+
+        /** shift against the previous generation, for deltas. */
+        private final int columnShift;
+
+        /** keyframes are decoded on their own. */
+        private final boolean key;
+
+        /** count of encoded bytes. */
+        private final int length;
+
+        /** encoded bytes, null once spilled. */
+        private byte[] data;
+
+        /** position in the spill file. */
+        private long offset = -1;
+
+        /**
+         * Constructor.
+         * @param rows
+         * @param columns
+         * @param rowShift
+         * @param columnShift
+         * @param key
+         * @param data
+         */
+        Frame(final int rows, final int columns, final int rowShift, final int columnShift, final boolean key,
+                final byte[] data) {
+            this.rows = rows;
+            this.columns = columns;
+            this.rowShift = rowShift;
+            this.columnShift = columnShift;
+            this.key = key;
+            this.data = data;
+            this.length = data.length;
+        }
+    }
+}
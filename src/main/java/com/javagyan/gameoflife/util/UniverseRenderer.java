@@ -0,0 +1,249 @@
+package com.javagyan.gameoflife.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.Region;
+import com.javagyan.gameoflife.model.State;
+import com.javagyan.gameoflife.model.Universe;
+
+/**
+ * Streams the visual representation of a Universe row by row, so that huge universes can be dumped without building
+ * the whole text in memory the way Universe.toString does. Output can be cropped to a viewport and downsampled so that
+ * one character stands for a square block of cells showing how crowded the block is.
+ *
+ * With the default settings the output is exactly the same as Universe.toString.
+ * @author Sanjeev Kumar
+ */
+public final class UniverseRenderer {
+
+    /** Size of the buffer that is filled and flushed to the target over and over again. */
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Characters used for downsampled blocks, from an empty block to a fully alive block. The two ends match the
+     * characters of a single cell.
+     */
+    private static final char[] DENSITY_RAMP = {UniverseUtil.DEAD, '.', ':', '+', '*', '#', UniverseUtil.ALIVE};
+
+    /** Part of the Universe to render, null renders the whole Universe. */
+    private final Region viewport;
+
+    /** Side of the square block of cells shown as one character. */
+    private final int blockSize;
+
+    /**
+     * Renderer for the whole Universe, one character per cell.
+     */
+    public UniverseRenderer() {
+        this(null, 1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param viewport part of the Universe to render, null for the whole Universe
+     * @param blockSize side of the square block of cells shown as one character
+     */
+    public UniverseRenderer(final Region viewport, final int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.viewport = viewport;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Writes the Universe to the writer. The writer is flushed but not closed.
+     * @param universe
+     * @param writer
+     * @throws IOException
+     */
+    public void render(final Universe universe, final Writer writer) throws IOException {
+        render(universe, new WriterSink(writer));
+    }
+
+    /**
+     * Writes the Universe to the channel as ASCII text. The channel is not closed.
+     * @param universe
+     * @param channel
+     * @throws IOException
+     */
+    public void render(final Universe universe, final WritableByteChannel channel) throws IOException {
+        render(universe, new ChannelSink(channel));
+    }
+
+    /**
+     * Walks the cells once in the order they are kept in the Universe (row after row, as Universe.toString expects)
+     * and emits a line every time a band of blockSize rows is complete.
+     * @param universe
+     * @param sink
+     * @throws IOException
+     */
+    private void render(final Universe universe, final Sink sink) throws IOException {
+        final Region whole = Region.of(universe);
+        final Region view = (viewport == null) ? whole : whole.intersect(viewport);
+        if (view.isEmpty()) {
+            sink.flush();
+            return;
+        }
+        final int outColumns = ((view.getColumns() + blockSize) - 1) / blockSize;
+        final int[] aliveCounts = new int[outColumns];
+        int currentBand = -1;
+        for (final Cell cell : universe.getCells()) {
+            final int row = cell.getRow();
+            if (row >= view.getBottom()) {
+                break;
+            }
+            if (!view.contains(row, cell.getColumn())) {
+                continue;
+            }
+            final int band = (row - view.getTop()) / blockSize;
+            if (band != currentBand) {
+                if (currentBand >= 0) {
+                    writeBand(sink, view, currentBand, aliveCounts);
+                }
+                currentBand = band;
+            }
+            if (State.ALIVE.equals(cell.getState())) {
+                aliveCounts[(cell.getColumn() - view.getLeft()) / blockSize]++;
+            }
+        }
+        if (currentBand >= 0) {
+            writeBand(sink, view, currentBand, aliveCounts);
+        }
+        sink.flush();
+    }
+
+    /**
+     * Emits one line for a band of rows and resets the counts for the next band.
+     * @param sink
+     * @param view
+     * @param band
+     * @param aliveCounts
+     * @throws IOException
+     */
+    private void writeBand(final Sink sink, final Region view, final int band, final int[] aliveCounts)
+            throws IOException {
+        final int bandRows = Math.min(blockSize, view.getRows() - (band * blockSize));
+        for (int i = 0; i < aliveCounts.length; i++) {
+            final int blockColumns = Math.min(blockSize, view.getColumns() - (i * blockSize));
+            sink.put(' ');
+            sink.put(densityChar(aliveCounts[i], bandRows * blockColumns));
+            aliveCounts[i] = 0;
+        }
+        sink.put('\n');
+    }
+
+    /**
+     * Picks the character for a block with the given count of alive cells.
+     * @param alive
+     * @param area
+     * @return char
+     */
+    private static char densityChar(final int alive, final int area) {
+        if (alive == 0) {
+            return DENSITY_RAMP[0];
+        }
+        if (alive == area) {
+            return DENSITY_RAMP[DENSITY_RAMP.length - 1];
+        }
+        final int levels = DENSITY_RAMP.length - 2;
+        return DENSITY_RAMP[1 + Math.min(levels - 1, (alive * levels) / area)];
+    }
+
+    /**
+     * Target of the rendering with a buffer that is reused for every row.
+     */
+    private abstract static class Sink {
+        /**
+         * Appends a character, flushing the buffer when it is full.
+         * @param c
+         * @throws IOException
+         */
+        abstract void put(char c) throws IOException;
+
+        /**
+         * Pushes whatever is buffered to the target.
+         * @throws IOException
+         */
+        abstract void flush() throws IOException;
+    }
+
+    /**
+     * Sink writing to a character stream.
+     */
+    private static final class WriterSink extends Sink {
+        /** target. */
+        private final Writer writer;
+
+        /** reused buffer. */
+        private final char[] buffer = new char[BUFFER_SIZE];
+
+        /** count of buffered characters. */
+        private int length;
+
+        /**
+         * Constructor.
+         * @param writer
+         */
+        WriterSink(final Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        void put(final char c) throws IOException {
+            if (length == buffer.length) {
+                writer.write(buffer, 0, length);
+                length = 0;
+            }
+            buffer[length++] = c;
+        }
+
+        @Override
+        void flush() throws IOException {
+            writer.write(buffer, 0, length);
+            length = 0;
+            writer.flush();
+        }
+    }
+
+    /**
+     * Sink writing ASCII bytes to a channel.
+     */
+    private static final class ChannelSink extends Sink {
+        /** target. */
+        private final WritableByteChannel channel;
+
+        /** reused buffer. */
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * Constructor.
+         * @param channel
+         */
+        ChannelSink(final WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        void put(final char c) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) c);
+        }
+
+        @Override
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.javagyan.gameoflife.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Region;
 import com.javagyan.gameoflife.model.State;
 import com.javagyan.gameoflife.model.Universe;
 
@@ -81,6 +85,65 @@ public class UniverseUtil {
         return createUniverse(convertToArray(rows, columns, cells));
     }
 
+    /**
+     * Constructs the Universe from a packed grid, trimming dead boundaries the same way as createUniverse(char[][])
+     * but finding them from the words in a single pass.
+     * @param grid
+     * @return Universe
+     */
+    public static Universe createUniverse(final PackedGrid grid) {
+        final Region bounds = grid.getBounds();
+        if (bounds.isEmpty()) {
+            return createUniverse(new char[0][0]);
+        }
+        final int rows = bounds.getRows();
+        final int columns = bounds.getColumns();
+        final List<Cell> cells = new ArrayList<Cell>(rows * columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                cells.add(new Cell(i, j, grid.isAlive(bounds.getTop() + i, bounds.getLeft() + j) ? State.ALIVE
+                        : State.DEAD));
+            }
+        }
+        return new Universe(rows, columns, cells);
+    }
+
+    /**
+     * Constructs the Universe from the ALIVE cells of a set, trimmed to their bounds.
+     * @param set
+     * @return Universe
+     */
+    public static Universe createUniverse(final CellSet set) {
+        if (set.size() == 0) {
+            return createUniverse(new char[0][0]);
+        }
+        final Region bounds = set.getBounds();
+        final char[][] charArray = new char[bounds.getRows()][bounds.getColumns()];
+        for (final char[] row : charArray) {
+            Arrays.fill(row, DEAD);
+        }
+        for (int i = 0; i < set.size(); i++) {
+            final long key = set.getKey(i);
+            charArray[CellSet.row(key) - bounds.getTop()][CellSet.column(key) - bounds.getLeft()] = ALIVE;
+        }
+        return createUniverse(charArray);
+    }
+
+    /**
+     * Convert a given Universe into a packed grid of the same size.
+     * @param universe
+     * @return PackedGrid
+     */
+    public static PackedGrid convertToPackedGrid(final Universe universe) {
+        final PackedGrid grid = new PackedGrid(universe.getRows(), universe.getColumns());
+        for (final Cell cell : universe.getCells()) {
+            if (State.ALIVE.equals(cell.getState())) {
+                grid.set(cell.getRow(), cell.getColumn(), true);
+            }
+        }
+        return grid;
+    }
+
     /**
      * Convert universe to two dimensional array.
      * @param universe
@@ -1,6 +1,22 @@
 package com.javagyan.gameoflife;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.Assert;
 
@@ -8,8 +24,25 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.Region;
+import com.javagyan.gameoflife.model.State;
 import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.service.BoardProfile;
+import com.javagyan.gameoflife.service.CancellationToken;
+import com.javagyan.gameoflife.service.GameOfLifeService;
+import com.javagyan.gameoflife.service.LifeEngine;
+import com.javagyan.gameoflife.service.ObjectEvent;
+import com.javagyan.gameoflife.service.ObjectTracker;
+import com.javagyan.gameoflife.service.PlayBudget;
+import com.javagyan.gameoflife.service.PlayCache;
+import com.javagyan.gameoflife.service.PlayResult;
+import com.javagyan.gameoflife.service.SimulationSession;
+import com.javagyan.gameoflife.service.SparseEngine;
 import com.javagyan.gameoflife.util.GameOfLifePlayer;
+import com.javagyan.gameoflife.util.GenerationHistory;
+import com.javagyan.gameoflife.util.UniverseRenderer;
 import com.javagyan.gameoflife.util.UniverseUtil;
 
 public class GameOfLifeTest {
@@ -245,4 +278,458 @@ public class GameOfLifeTest {
         Assert.assertTrue(generations.size() == 3);
         Assert.assertEquals(toadPatternUniverse, generations.get(generations.size() - 1)); // test evolution
     }
+
+    /**
+     * Tests following scenarios. - Streamed output of the whole Universe is the same as toString - Viewport crops the
+     * Universe - Downsampled output shows one character per block
+     */
+    @Test
+    public final void testRenderer() throws IOException {
+        final Universe circleUniverse = UniverseUtil.createUniverse(circlePattern);
+        final StringWriter whole = new StringWriter();
+        new UniverseRenderer().render(circleUniverse, whole);
+        Assert.assertEquals(circleUniverse.toString(), whole.toString());
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new UniverseRenderer().render(circleUniverse, Channels.newChannel(bytes));
+        Assert.assertEquals(circleUniverse.toString(), bytes.toString("US-ASCII"));
+
+        final StringWriter cropped = new StringWriter();
+        new UniverseRenderer(new Region(5, 5, 4, 4), 1).render(circleUniverse, cropped);
+        Assert.assertEquals(" - X X -\n X - - X\n X - - X\n - X X -\n", cropped.toString());
+
+        final StringWriter downsampled = new StringWriter();
+        new UniverseRenderer(null, 2).render(UniverseUtil.createUniverse(randomPattern), downsampled);
+        Assert.assertEquals(" X X\n X X\n", downsampled.toString());
+    }
+
+    /**
+     * Tests following scenarios. - Region queries match a plain scan of the cells - Cells outside the Universe are
+     * DEAD
+     */
+    @Test
+    public final void testRegionQueries() {
+        final Universe circleUniverse = UniverseUtil.createUniverse(circlePattern);
+        final Region[] regions = {Region.of(circleUniverse), new Region(5, 5, 4, 4), new Region(-3, -3, 8, 20),
+                new Region(3, 9, 20, 2), new Region(7, 7, 0, 5)};
+        for (final Region region : regions) {
+            int expected = 0;
+            for (final Cell cell : circleUniverse.getAliveCells()) {
+                if (region.contains(cell.getRow(), cell.getColumn())) {
+                    expected++;
+                    Assert.assertTrue(circleUniverse.isAlive(cell.getRow(), cell.getColumn()));
+                }
+            }
+            Assert.assertEquals(expected, circleUniverse.countAliveCells(region));
+            Assert.assertEquals(expected, circleUniverse.getAliveCells(region).size());
+            for (final Cell cell : circleUniverse.getAliveCells(region)) {
+                Assert.assertTrue(region.contains(cell.getRow(), cell.getColumn()));
+            }
+        }
+        Assert.assertFalse(circleUniverse.isAlive(1, 1));
+        Assert.assertFalse(circleUniverse.isAlive(0, circleUniverse.getColumns() + 2));
+        Assert.assertFalse(circleUniverse.isAlive(-1, 2));
+    }
+
+    /**
+     * Tests following scenarios. - Every generation read back from the history equals the generation played step by
+     * step - Frames beyond the memory budget are spilled to disk and still readable in any order - Reading after close
+     * fails cleanly
+     */
+    @Test
+    public final void testGenerationHistory() throws IOException {
+        final char[][] rPentomino = { {'-', 'X', 'X'}, {'X', 'X', '-'}, {'-', 'X', '-'}};
+        final int generations = 150;
+        final GameOfLifeService service = new GameOfLifeService();
+        final List<Universe> expected = new ArrayList<Universe>();
+        Universe universe = UniverseUtil.createUniverse(rPentomino);
+        expected.add(universe);
+        for (int i = 0; i < generations; i++) {
+            universe = service.nextGeneration(universe);
+            expected.add(universe);
+        }
+
+        final File spillFile = File.createTempFile("history", ".bin");
+        final GenerationHistory history = new GenerationHistory(16, 2048, spillFile);
+        try {
+            service.play(UniverseUtil.createUniverse(rPentomino), generations, history);
+            Assert.assertEquals(generations + 1, history.size());
+            Assert.assertTrue(history.getSpilledBytes() > 0);
+            Assert.assertTrue(history.getMemoryBytes() <= 2048);
+            for (int i = 0; i <= generations; i++) {
+                Assert.assertEquals(expected.get(i), history.get(i));
+            }
+            for (int i = generations; i >= 0; i -= 7) {
+                Assert.assertEquals(expected.get(i), history.get(i));
+                Assert.assertEquals(expected.get(i).getRows(), history.get(i).getRows());
+            }
+        } finally {
+            history.close();
+        }
+        Assert.assertFalse(spillFile.exists());
+        try {
+            history.get(0);
+            Assert.fail("Spilled frames are gone after close");
+        } catch (final IllegalStateException e) {
+            Assert.assertEquals("history closed", e.getMessage());
+        }
+    }
+
+    /**
+     * Tests following scenarios. - Seeking forward, backward and stepping with next and previous give the same
+     * generations as playing step by step - The cache never grows past its size, for both policies
+     */
+    @Test
+    public final void testSimulationSession() {
+        final char[][] rPentomino = { {'-', 'X', 'X'}, {'X', 'X', '-'}, {'-', 'X', '-'}};
+        final int generations = 120;
+        final GameOfLifeService service = new GameOfLifeService();
+        final List<Universe> expected = new ArrayList<Universe>();
+        Universe universe = UniverseUtil.createUniverse(rPentomino);
+        expected.add(universe);
+        for (int i = 0; i < generations; i++) {
+            universe = service.nextGeneration(universe);
+            expected.add(universe);
+        }
+        final int[] targets = {100, 3, 57, 58, 120, 0, 119, 64, 65, 1};
+        for (final SimulationSession.CachePolicy policy : SimulationSession.CachePolicy.values()) {
+            final SimulationSession session = new SimulationSession(expected.get(0), 8, policy);
+            for (final int target : targets) {
+                Assert.assertEquals(expected.get(target), session.seek(target));
+                Assert.assertEquals(target, session.getGeneration());
+                Assert.assertTrue(session.getCachedSnapshots() <= 9);
+            }
+            session.seek(90);
+            for (int i = 89; i >= 80; i--) {
+                Assert.assertEquals(expected.get(i), session.previous());
+            }
+            for (int i = 81; i <= 95; i++) {
+                Assert.assertEquals(expected.get(i), session.next());
+            }
+            Assert.assertEquals(expected.get(95), session.current());
+        }
+    }
+
+    /**
+     * Tests following scenarios. - A seed is played once, whether it is moved, rotated or reflected - The disk tier
+     * answers for a new cache on the same directory - Concurrent requests for one seed wait for a single play
+     * @throws Exception
+     */
+    @Test
+    public final void testPlayCache() throws Exception {
+        final char[][] glider = { {'-', 'X', '-'}, {'-', '-', 'X'}, {'X', 'X', 'X'}};
+        final char[][] turnedGlider = { {'X', 'X', '-'}, {'X', '-', 'X'}, {'X', '-', '-'}};
+        final List<Cell> paddedCells = new ArrayList<Cell>();
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                final boolean alive = (i < 3) && (j < 3) && (glider[i][j] == UniverseUtil.ALIVE);
+                paddedCells.add(new Cell(i, j, alive ? State.ALIVE : State.DEAD));
+            }
+        }
+        final Universe padded = new Universe(4, 4, paddedCells);
+        final GameOfLifeService service = new GameOfLifeService();
+
+        final File directory = File.createTempFile("plays", "");
+        Assert.assertTrue(directory.delete());
+        try {
+            final PlayCache cache = new PlayCache(service, 16, directory, true);
+            for (final Universe seed : new Universe[] {UniverseUtil.createUniverse(glider),
+                    UniverseUtil.createUniverse(turnedGlider), padded}) {
+                Assert.assertEquals(service.play(seed), cache.play(seed));
+            }
+            Assert.assertEquals(1, cache.getMisses());
+            Assert.assertEquals(2, cache.getMemoryHits());
+
+            final PlayCache restarted = new PlayCache(service, 16, directory, true);
+            Assert.assertEquals(service.play(UniverseUtil.createUniverse(turnedGlider)),
+                    restarted.play(UniverseUtil.createUniverse(turnedGlider)));
+            Assert.assertEquals(1, restarted.getDiskHits());
+            Assert.assertEquals(0, restarted.getMisses());
+            Assert.assertEquals(1.0, restarted.getHitRate(), 0);
+
+            // limits of one seed's bytes keep only the most recent seed in either tier
+            final long oneSeed = restarted.getDiskBytes();
+            final PlayCache bounded = new PlayCache(service, 16, restarted.getMemoryBytes(), directory, oneSeed, false);
+            Assert.assertEquals(oneSeed, bounded.getDiskBytes());
+            bounded.play(UniverseUtil.createUniverse(blockPattern));
+            Assert.assertTrue(bounded.getDiskBytes() <= oneSeed);
+            Assert.assertEquals(1, directory.listFiles().length);
+            Assert.assertTrue(bounded.getMemoryBytes() <= restarted.getMemoryBytes());
+            bounded.play(UniverseUtil.createUniverse(glider));
+            Assert.assertEquals(1, directory.listFiles().length);
+            Assert.assertEquals(2, bounded.getMisses());
+        } finally {
+            for (final File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final LifeEngine slowEngine = new LifeEngine() {
+            private final GameOfLifeService reference = new GameOfLifeService();
+
+            public String getName() {
+                return "slow";
+            }
+
+            public Universe nextGeneration(final Universe universe) {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return reference.nextGeneration(universe);
+            }
+
+            public double estimateCost(final BoardProfile profile) {
+                return 0;
+            }
+        };
+        final PlayCache shared = new PlayCache(new GameOfLifeService(slowEngine), 16, null, false);
+        final List<Universe> expected = service.play(UniverseUtil.createUniverse(glider));
+        final List<List<Universe>> results = new ArrayList<List<Universe>>();
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    final List<Universe> result = shared.play(UniverseUtil.createUniverse(glider));
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            });
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        final long deadline = System.currentTimeMillis() + 10000;
+        while ((shared.getCoalesced() < 3) && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertEquals(1, shared.getMisses());
+        Assert.assertEquals(3, shared.getCoalesced());
+        Assert.assertEquals(4, results.size());
+        for (final List<Universe> result : results) {
+            Assert.assertEquals(expected, result);
+        }
+    }
+
+    /**
+     * Tests following scenarios. - A generation budget gives the generations of play(seed) up to its limit - Patterns
+     * that settle complete with the generations of play(seed), also when the seed has dead rows and columns around it -
+     * A cancelled token stops the play before the first generation - A deadline stops a long play, and the generations
+     * finished before it are correct
+     */
+    @Test
+    public final void testPlayWithinBudget() {
+        final GameOfLifeService service = new GameOfLifeService();
+        final char[][] rPentomino = { {'-', 'X', 'X'}, {'X', 'X', '-'}, {'-', 'X', '-'}};
+        final Universe seed = UniverseUtil.createUniverse(rPentomino);
+
+        // a budget of 9 generations gives what play(seed) gives with its limit of 10
+        final PlayResult budgeted = service.play(seed, PlayBudget.generations(9));
+        Assert.assertFalse(budgeted.isCompleted());
+        Assert.assertEquals(PlayResult.StopReason.GENERATION_BUDGET, budgeted.getStopReason());
+        Assert.assertEquals(service.play(seed), budgeted.getGenerations());
+
+        // patterns that settle complete the same as play(seed)
+        for (final char[][] pattern : new char[][][] {blinkerPattern, blockPattern, toadPattern}) {
+            final Universe settling = UniverseUtil.createUniverse(pattern);
+            final PlayResult result = service.play(settling, new PlayBudget(Integer.MAX_VALUE, -1, null, null));
+            Assert.assertTrue(result.isCompleted());
+            Assert.assertEquals(service.play(settling), result.getGenerations());
+        }
+
+        // a block with a dead border, and one with dead cells only below and to the right of it
+        for (final int offset : new int[] {1, 0}) {
+            final List<Cell> cells = new ArrayList<Cell>();
+            for (int i = 0; i < 4; i++) {
+                for (int j = 0; j < 4; j++) {
+                    final boolean alive = (i >= offset) && (i < (offset + 2)) && (j >= offset) && (j < (offset + 2));
+                    cells.add(new Cell(i, j, alive ? State.ALIVE : State.DEAD));
+                }
+            }
+            final Universe padded = new Universe(4, 4, cells);
+            final PlayResult result = service.play(padded, new PlayBudget(Integer.MAX_VALUE, -1, null, null));
+            Assert.assertTrue(result.isCompleted());
+            Assert.assertEquals(service.play(padded).size(), result.getGenerations().size());
+            Assert.assertEquals(service.play(padded), result.getGenerations());
+        }
+
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        final PlayResult cancelled = service.play(seed, new PlayBudget(100, -1, null, token));
+        Assert.assertEquals(PlayResult.StopReason.CANCELLED, cancelled.getStopReason());
+        Assert.assertEquals(1, cancelled.getGenerations().size());
+
+        // a soup runs for far longer than the deadline; what was finished is still correct
+        final Random random = new Random(39);
+        final char[][] soup = new char[256][256];
+        for (int i = 0; i < soup.length; i++) {
+            for (int j = 0; j < soup[i].length; j++) {
+                soup[i][j] = random.nextBoolean() ? UniverseUtil.ALIVE : UniverseUtil.DEAD;
+            }
+        }
+        final PlayResult partial = service.play(UniverseUtil.createUniverse(soup),
+                PlayBudget.timeout(10, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(PlayResult.StopReason.DEADLINE, partial.getStopReason());
+        final List<Universe> generations = partial.getGenerations();
+        for (int i = 1; i < generations.size(); i++) {
+            Assert.assertEquals(UniverseUtil.convertToPackedGrid(service.nextGeneration(generations.get(i - 1))),
+                    UniverseUtil.convertToPackedGrid(generations.get(i)));
+        }
+    }
+
+    /**
+     * Tests following scenarios. - Every object of the seed is born - A lone cell dies while a block and a blinker
+     * keep their ids, and only the turned blinker is labelled again - Births or deaths that do not fit the board are
+     * rejected without changing it - On a soup the objects are the components of the board for both kinds of
+     * connectivity, and every kind of event happens - Played along with the generations of a budget, past the limit of
+     * play(seed)
+     */
+    @Test
+    public final void testObjectTracker() {
+        final GameOfLifeService service = new GameOfLifeService();
+
+        // a block and a blinker far apart, and a lone cell that dies
+        final char[][] board = new char[6][12];
+        for (final char[] row : board) {
+            Arrays.fill(row, UniverseUtil.DEAD);
+        }
+        board[0][0] = UniverseUtil.ALIVE;
+        board[0][1] = UniverseUtil.ALIVE;
+        board[1][0] = UniverseUtil.ALIVE;
+        board[1][1] = UniverseUtil.ALIVE;
+        board[1][10] = UniverseUtil.ALIVE;
+        board[2][10] = UniverseUtil.ALIVE;
+        board[3][10] = UniverseUtil.ALIVE;
+        board[5][5] = UniverseUtil.ALIVE;
+        final ObjectTracker tracker = new ObjectTracker();
+        final List<ObjectEvent> born = tracker.start(UniverseUtil.createUniverse(board));
+        Assert.assertEquals(3, born.size());
+        for (final ObjectEvent event : born) {
+            Assert.assertEquals(ObjectEvent.Type.BIRTH, event.getType());
+        }
+        final List<Integer> ids = tracker.getObjectIds();
+        // the blinker turns and the lone cell dies
+        final List<ObjectEvent> first = tracker.advance(Arrays.asList(CellSet.key(2, 9), CellSet.key(2, 11)),
+                Arrays.asList(CellSet.key(1, 10), CellSet.key(3, 10), CellSet.key(5, 5)));
+        Assert.assertEquals(1, first.size());
+        Assert.assertEquals(ObjectEvent.Type.DEATH, first.get(0).getType());
+        Assert.assertEquals(0, first.get(0).getBornAt());
+        Assert.assertEquals(2, tracker.getObjectIds().size());
+        Assert.assertTrue(ids.containsAll(tracker.getObjectIds()));
+
+        // only the turned blinker, its middle cell and two births, is labelled again; the block is not visited
+        Assert.assertEquals(3, tracker.getLastRelabelled());
+
+        // a death where no cell is ALIVE, or a birth where one is, leaves the tracker as it was
+        final List<Long> none = new ArrayList<Long>();
+        try {
+            tracker.advance(none, Arrays.asList(CellSet.key(0, 0), CellSet.key(5, 5)));
+            Assert.fail("unknown death accepted");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Cell died at 5,5 is not ALIVE", e.getMessage());
+        }
+        try {
+            tracker.advance(Arrays.asList(CellSet.key(0, 0)), none);
+            Assert.fail("birth at an ALIVE cell accepted");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertEquals("Cell born at 0,0 is already ALIVE", e.getMessage());
+        }
+        Assert.assertEquals(1, tracker.getGeneration());
+        Assert.assertEquals(4, tracker.getSize(tracker.getObjectIds().get(0)));
+
+        // a soup, checked against labelling the whole board from scratch
+        final Random random = new Random(40);
+        final char[][] soup = new char[24][24];
+        for (int i = 0; i < soup.length; i++) {
+            for (int j = 0; j < soup[i].length; j++) {
+                soup[i][j] = (random.nextInt(3) == 0) ? UniverseUtil.ALIVE : UniverseUtil.DEAD;
+            }
+        }
+        for (final ObjectTracker.Connectivity connectivity : ObjectTracker.Connectivity.values()) {
+            final ObjectTracker soupTracker = new ObjectTracker(connectivity);
+            Universe universe = UniverseUtil.createUniverse(soup);
+            CellSet cells = CellSet.of(universe, 0, 0);
+            soupTracker.start(universe);
+            for (int generation = 1; generation <= 60; generation++) {
+                universe = service.nextGeneration(universe);
+                cells = SparseEngine.step(cells);
+                soupTracker.advance(universe, cells.getBounds().getTop(), cells.getBounds().getLeft());
+                assertObjects(cells, soupTracker, connectivity.getReach());
+            }
+            final List<ObjectEvent.Type> types = new ArrayList<ObjectEvent.Type>();
+            for (final ObjectEvent event : soupTracker.getEvents()) {
+                types.add(event.getType());
+            }
+            Assert.assertTrue(types.containsAll(Arrays.asList(ObjectEvent.Type.values())));
+        }
+
+        // alongside the generations of play, past its limit of 10
+        final ObjectTracker played = new ObjectTracker();
+        final PlayResult result = service.play(UniverseUtil.createUniverse(soup), PlayBudget.generations(100), played);
+        Assert.assertEquals(service.play(UniverseUtil.createUniverse(soup), PlayBudget.generations(100))
+                .getGenerations(), result.getGenerations());
+        Assert.assertEquals(result.getGenerations().size() - 1, played.getGeneration());
+        Assert.assertTrue(played.getGeneration() > UniverseUtil.GENERATIONS_LIMIT);
+        CellSet cells = CellSet.of(UniverseUtil.createUniverse(soup), 0, 0);
+        for (int generation = 0; generation < played.getGeneration(); generation++) {
+            cells = SparseEngine.step(cells);
+        }
+        assertObjects(cells, played, 1);
+    }
+
+    /**
+     * Checks that the objects of the tracker cover the board and are its components: every object is connected, and no
+     * two objects are within reach of each other.
+     * @param cells
+     * @param tracker
+     * @param reach
+     */
+    private static void assertObjects(final CellSet cells, final ObjectTracker tracker, final int reach) {
+        final Map<Long, Integer> owner = new HashMap<Long, Integer>();
+        for (final Integer id : tracker.getObjectIds()) {
+            final CellSet object = tracker.getObject(id);
+            Assert.assertEquals(object.size(), tracker.getSize(id));
+            for (int i = 0; i < object.size(); i++) {
+                Assert.assertNull(owner.put(object.getKey(i), id));
+            }
+            // flood fill inside the object reaches all of it
+            final Set<Long> reached = new HashSet<Long>();
+            final Deque<Long> queue = new ArrayDeque<Long>();
+            queue.add(object.getKey(0));
+            reached.add(object.getKey(0));
+            while (!queue.isEmpty()) {
+                final long key = queue.poll();
+                for (int r = -reach; r <= reach; r++) {
+                    for (int c = -reach; c <= reach; c++) {
+                        final long near = CellSet.key(CellSet.row(key) + r, CellSet.column(key) + c);
+                        if (object.isAlive(CellSet.row(near), CellSet.column(near)) && reached.add(near)) {
+                            queue.add(near);
+                        }
+                    }
+                }
+            }
+            Assert.assertEquals(object.size(), reached.size());
+        }
+        Assert.assertEquals(cells.size(), owner.size());
+        for (int i = 0; i < cells.size(); i++) {
+            final long key = cells.getKey(i);
+            final Integer id = owner.get(key);
+            Assert.assertNotNull(id);
+            for (int r = -reach; r <= reach; r++) {
+                for (int c = -reach; c <= reach; c++) {
+                    final Integer near = owner.get(CellSet.key(CellSet.row(key) + r, CellSet.column(key) + c));
+                    Assert.assertTrue((near == null) || near.equals(id));
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,661 @@
+package com.javagyan.gameoflife;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import com.javagyan.gameoflife.model.Cell;
+import com.javagyan.gameoflife.model.CellSet;
+import com.javagyan.gameoflife.model.ChunkedUniverse;
+import com.javagyan.gameoflife.model.ChunkedUniverse.ContainerType;
+import com.javagyan.gameoflife.model.MortonGrid;
+import com.javagyan.gameoflife.model.PackedGrid;
+import com.javagyan.gameoflife.model.Region;
+import com.javagyan.gameoflife.model.StatePlanes;
+import com.javagyan.gameoflife.model.Universe;
+import com.javagyan.gameoflife.service.AdaptiveEngine;
+import com.javagyan.gameoflife.service.BatchEngine;
+import com.javagyan.gameoflife.service.BoardProfile;
+import com.javagyan.gameoflife.service.ChunkedEngine;
+import com.javagyan.gameoflife.service.CycleFastForward;
+import com.javagyan.gameoflife.service.GameOfLifeService;
+import com.javagyan.gameoflife.service.GenerationsEngine;
+import com.javagyan.gameoflife.service.GenerationsRule;
+import com.javagyan.gameoflife.service.IncrementalEngine;
+import com.javagyan.gameoflife.service.LargerThanLifeEngine;
+import com.javagyan.gameoflife.service.LargerThanLifeRule;
+import com.javagyan.gameoflife.service.LifeEngine;
+import com.javagyan.gameoflife.service.LifeEngines;
+import com.javagyan.gameoflife.service.MemoizingEngine;
+import com.javagyan.gameoflife.service.MortonEngine;
+import com.javagyan.gameoflife.service.PackedEngine;
+import com.javagyan.gameoflife.service.ReferenceEngine;
+import com.javagyan.gameoflife.service.SparseEngine;
+import com.javagyan.gameoflife.util.GameOfLifePlayer;
+import com.javagyan.gameoflife.util.UniverseUtil;
+
+public class LifeEngineTest {
+
+    char[][] rPentomino = { {'-', 'X', 'X'}, {'X', 'X', '-'}, {'-', 'X', '-'}};
+
+    char[][] gliderPattern = { {'-', 'X', '-'}, {'-', '-', 'X'}, {'X', 'X', 'X'}};
+
+    char[][] blinkerPattern = { {'-', 'X', '-'}, {'-', 'X', '-'}, {'-', 'X', '-'}};
+
+    /**
+     * Plays the seed for the given count of generations with the engine.
+     * @param engine
+     * @param seed
+     * @param generations
+     * @return List<Universe>
+     */
+    private static List<Universe> run(final LifeEngine engine, final Universe seed, final int generations) {
+        final GameOfLifeService service = new GameOfLifeService(engine);
+        final List<Universe> result = new ArrayList<Universe>();
+        Universe universe = seed;
+        result.add(universe);
+        for (int i = 0; i < generations; i++) {
+            universe = service.nextGeneration(universe);
+            result.add(universe);
+        }
+        return result;
+    }
+
+    /**
+     * Tests following scenarios. - All registered engines are found, and Larger than Life is not one of them - Every
+     * engine, Larger than Life with the rules of this program included, gives the same generations as the original
+     * algorithm
+     */
+    @Test
+    public final void testEnginesMatchReference() {
+        final List<LifeEngine> engines = LifeEngines.load();
+        final List<String> names = new ArrayList<String>();
+        for (final LifeEngine engine : engines) {
+            names.add(engine.getName());
+        }
+        Assert.assertTrue(names.contains(ReferenceEngine.NAME));
+        Assert.assertTrue(names.contains(PackedEngine.NAME));
+        Assert.assertTrue(names.contains(SparseEngine.NAME));
+        Assert.assertTrue(names.contains(MemoizingEngine.NAME));
+        Assert.assertTrue(names.contains(IncrementalEngine.NAME));
+        Assert.assertFalse(names.contains(LargerThanLifeEngine.NAME));
+        engines.add(new AdaptiveEngine());
+        engines.add(new LargerThanLifeEngine(LargerThanLifeRule.conway(), 1));
+
+        for (final char[][] pattern : new char[][][] {rPentomino, gliderPattern, blinkerPattern}) {
+            final Universe seed = UniverseUtil.createUniverse(pattern);
+            final List<Universe> expected = run(null, seed, 60);
+            for (final LifeEngine engine : engines) {
+                final List<Universe> actual = run(engine, seed, 60);
+                for (int i = 0; i < expected.size(); i++) {
+                    Assert.assertEquals(engine.getName() + " generation " + i, expected.get(i), actual.get(i));
+                    Assert.assertEquals(expected.get(i).getRows(), actual.get(i).getRows());
+                    Assert.assertEquals(expected.get(i).getColumns(), actual.get(i).getColumns());
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests following scenarios. - Sparse stepping keeps absolute positions, so a glider drifts one cell diagonally
+     * every four generations - Region queries work on negative positions
+     */
+    @Test
+    public final void testSparseGliderDrift() {
+        final CellSet glider = CellSet.of(UniverseUtil.createUniverse(gliderPattern), -10, -10);
+        CellSet cells = glider;
+        for (int i = 0; i < 4; i++) {
+            cells = SparseEngine.step(cells);
+        }
+        final Region bounds = glider.getBounds();
+        Assert.assertEquals(new Region(bounds.getTop() + 1, bounds.getLeft() + 1, 3, 3), cells.getBounds());
+        Assert.assertEquals(5, cells.countAliveCells(new Region(-20, -20, 20, 20)));
+        Assert.assertEquals(5, cells.getAliveCells(cells.getBounds()).size());
+        Assert.assertTrue(cells.isAlive(-8, -7));
+        Assert.assertFalse(cells.isAlive(-8, -8));
+    }
+
+    /**
+     * Tests following scenarios. - Adaptive engine logs its choices - Once the blinker is seen repeating, the
+     * memoizing engine takes over
+     */
+    @Test
+    public final void testAdaptiveEngineSwitches() {
+        final AdaptiveEngine engine = new AdaptiveEngine();
+        run(engine, UniverseUtil.createUniverse(blinkerPattern), 3 * AdaptiveEngine.SAMPLE_INTERVAL);
+        Assert.assertTrue(engine.getSwitches().size() >= 2);
+        Assert.assertEquals(MemoizingEngine.NAME, engine.getCurrentEngine().getName());
+        Assert.assertTrue(engine.getSwitches().get(engine.getSwitches().size() - 1).contains("period 2"));
+        // the memo keeps the two phases of the blinker packed, a word per row of each board and result
+        final MemoizingEngine memo = new MemoizingEngine();
+        run(memo, UniverseUtil.createUniverse(blinkerPattern), 10);
+        Assert.assertEquals(2 * (3 + 1) * 8, memo.getMemoryBytes());
+    }
+
+    /**
+     * Tests following scenarios. - The player picks the engine named by the system property
+     */
+    @Test
+    public final void testPlayerEngineProperty() {
+        final Universe seed = UniverseUtil.createUniverse(blinkerPattern);
+        final List<Universe> expected = GameOfLifePlayer.getInstance().playGameOfLife(seed);
+        System.setProperty(LifeEngines.ENGINE_PROPERTY, AdaptiveEngine.NAME);
+        try {
+            Assert.assertEquals(expected, GameOfLifePlayer.getInstance().playGameOfLife(seed));
+        } finally {
+            System.clearProperty(LifeEngines.ENGINE_PROPERTY);
+        }
+    }
+
+    /**
+     * Tests following scenarios. - A glider keeps its five cells and moves off its first grid, so the grid has to
+     * grow - After the first tick, work follows the cells that change: a glider changes at most 8 cells per tick, and
+     * each change leads to at most 9 cells looked at and exactly 8 counts updated - A new Universe starts over with a
+     * full count
+     */
+    @Test
+    public final void testIncrementalEngine() {
+        final IncrementalEngine engine = new IncrementalEngine();
+        final Universe seed = UniverseUtil.createUniverse(gliderPattern);
+        final List<Universe> expected = run(null, seed, 100);
+        final List<Universe> actual = run(engine, seed, 100);
+        Assert.assertEquals(expected, actual);
+        Assert.assertTrue((engine.getLastChanges() > 0) && (engine.getLastChanges() <= 8));
+        Assert.assertTrue(engine.getLastCandidates() <= (9 * 8));
+        Assert.assertEquals(8 * engine.getLastChanges(), engine.getLastCounterUpdates());
+        Assert.assertTrue(engine.getTotalCounterUpdates() <= (100L * 8 * 8));
+
+        final Universe blinker = UniverseUtil.createUniverse(blinkerPattern);
+        Assert.assertEquals(expected.get(1), engine.nextGeneration(seed));
+        Assert.assertEquals(run(null, blinker, 1).get(1), engine.nextGeneration(blinker));
+
+        // a glider flying far keeps a small grid and the same work per tick
+        final IncrementalEngine flying = new IncrementalEngine();
+        Universe universe = seed;
+        for (int generation = 0; generation < 20000; generation++) {
+            universe = flying.nextGeneration(universe);
+            Assert.assertTrue(flying.getGridArea() <= ((3 + 16) * (3 + 16)));
+            Assert.assertTrue(flying.getLastCandidates() <= (9 * 8));
+            Assert.assertTrue(flying.getLastCounterUpdates() <= (8 * 8));
+        }
+        Assert.assertEquals(seed, universe);
+        Assert.assertTrue(flying.getTotalCounterUpdates() <= (20000L * 8 * 8));
+    }
+
+    /**
+     * Steps a set the given count of generations.
+     * @param seed
+     * @param generations
+     * @return CellSet
+     */
+    private static CellSet stepSparse(final CellSet seed, final int generations) {
+        CellSet cells = seed;
+        for (int i = 0; i < generations; i++) {
+            cells = SparseEngine.step(cells);
+        }
+        return cells;
+    }
+
+    /**
+     * Tests following scenarios. - A glider is found to repeat every 4 generations one cell further - Generation
+     * 10^9 is the seed moved by 2.5 * 10^8 cells - The result matches plain stepping for a moderate N
+     */
+    @Test
+    public final void testFastForwardGlider() {
+        final CycleFastForward fastForward = new CycleFastForward();
+        final CellSet glider = CellSet.of(UniverseUtil.createUniverse(gliderPattern), 0, 0);
+        final CycleFastForward.Cycle cycle = fastForward.findCycle(glider);
+        Assert.assertEquals(4, cycle.getPeriod());
+        Assert.assertEquals(1, cycle.getRowShift());
+        Assert.assertEquals(1, cycle.getColumnShift());
+
+        final CellSet far = fastForward.generationAt(glider, 1000000000L, false);
+        Assert.assertEquals(glider.translate(250000000, 250000000), far);
+        Assert.assertEquals(stepSparse(glider, 1001), fastForward.generationAt(glider, 1001, false));
+        Assert.assertEquals(UniverseUtil.createUniverse(blinkerPattern),
+                new GameOfLifeService().generationAt(UniverseUtil.createUniverse(blinkerPattern), 1000000000L));
+    }
+
+    /**
+     * Tests following scenarios. - A board with separate gliders and oscillators is fast forwarded object by object -
+     * Gliders on a collision course are not split, the result still matches plain stepping
+     */
+    @Test
+    public final void testFastForwardPerObject() {
+        final CycleFastForward fastForward = new CycleFastForward(64);
+        final CellSet glider = CellSet.of(UniverseUtil.createUniverse(gliderPattern), 0, 0);
+        final CellSet blinker = CellSet.of(UniverseUtil.createUniverse(blinkerPattern), 0, 0);
+        final long[] keys = new long[13];
+        int count = 0;
+        for (final CellSet part : new CellSet[] {glider.translate(10, 10), blinker.translate(0, 40),
+                glider.translate(30, 0)}) {
+            System.arraycopy(part.getKeys(), 0, keys, count, part.size());
+            count += part.size();
+        }
+        Arrays.sort(keys);
+        final CellSet board = new CellSet(keys, count);
+        try {
+            fastForward.generationAt(board, 500, false);
+            Assert.fail("the whole board never repeats");
+        } catch (final IllegalStateException expected) {
+            Assert.assertNotNull(expected.getMessage());
+        }
+        Assert.assertEquals(stepSparse(board, 500), fastForward.generationAt(board, 500, true));
+
+        final long[] collision = new long[10];
+        System.arraycopy(glider.getKeys(), 0, collision, 0, 5);
+        final CellSet mirrored = CellSet.of(UniverseUtil.createUniverse(new char[][] { {'-', 'X', '-'},
+                {'X', '-', '-'}, {'X', 'X', 'X'}}), 0, 20);
+        System.arraycopy(mirrored.getKeys(), 0, collision, 5, 5);
+        Arrays.sort(collision);
+        final CellSet crash = new CellSet(collision, 10);
+        Assert.assertEquals(stepSparse(crash, 300), fastForward.generationAt(crash, 300, true));
+    }
+
+    /**
+     * Tests following scenarios. - Batch results match play(seed) for every lane, including lanes that die out, cycle
+     * or reach the limit - Timing of the batch against a loop over play(seed) is printed
+     */
+    @Test
+    public final void testBatchEngine() {
+        final Random random = new Random(42);
+        final List<Universe> seeds = new ArrayList<Universe>();
+        seeds.add(UniverseUtil.createUniverse(blinkerPattern));
+        seeds.add(UniverseUtil.createUniverse(gliderPattern));
+        seeds.add(UniverseUtil.createUniverse(new char[][] { {'X', '-'}, {'-', '-'}}));
+        while (seeds.size() < 200) {
+            final char[][] pattern = new char[16][16];
+            for (final char[] row : pattern) {
+                for (int j = 0; j < row.length; j++) {
+                    row[j] = (random.nextInt(3) == 0) ? UniverseUtil.ALIVE : UniverseUtil.DEAD;
+                }
+            }
+            seeds.add(UniverseUtil.createUniverse(pattern));
+        }
+        final GameOfLifeService service = new GameOfLifeService();
+        final BatchEngine batch = new BatchEngine();
+        for (int warmUp = 0; warmUp < 3; warmUp++) {
+            batch.play(seeds);
+            for (final Universe seed : seeds) {
+                service.play(seed);
+            }
+        }
+
+        long start = System.nanoTime();
+        final List<List<Universe>> actual = batch.play(seeds);
+        final long batchTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        final List<List<Universe>> expected = new ArrayList<List<Universe>>();
+        for (final Universe seed : seeds) {
+            expected.add(service.play(seed));
+        }
+        final long loopTime = System.nanoTime() - start;
+        System.out.println("Batch of " + seeds.size() + " seeds: " + (batchTime / 1000) + " us, loop over play: "
+                + (loopTime / 1000) + " us");
+
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals("seed " + i, expected.get(i).size(), actual.get(i).size());
+            for (int j = 0; j < expected.get(i).size(); j++) {
+                Assert.assertEquals(expected.get(i).get(j), actual.get(i).get(j));
+                Assert.assertEquals(expected.get(i).get(j).getRows(), actual.get(i).get(j).getRows());
+            }
+        }
+    }
+
+    /**
+     * Tests following scenarios. - A range 3 rule gives the same generations as counting every neighbour one by one -
+     * Four threads give the same generations as one
+     */
+    @Test
+    public final void testLargerThanLife() {
+        final LargerThanLifeRule rule = new LargerThanLifeRule(3, 14, 19, 12, 24);
+        final LargerThanLifeEngine single = new LargerThanLifeEngine(rule, 1);
+        final LargerThanLifeEngine parallel = new LargerThanLifeEngine(rule, 4);
+        final Random random = new Random(7);
+        final char[][] pattern = new char[20][20];
+        for (final char[] row : pattern) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = (random.nextInt(2) == 0) ? UniverseUtil.ALIVE : UniverseUtil.DEAD;
+            }
+        }
+        Universe expected = UniverseUtil.createUniverse(pattern);
+        Universe actual = expected;
+        Universe actualParallel = expected;
+        for (int generation = 0; generation < 8; generation++) {
+            final int rows = expected.getRows() + 6;
+            final int columns = expected.getColumns() + 6;
+            final char[][] next = new char[rows][columns];
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < columns; j++) {
+                    int neighbours = 0;
+                    for (int di = -3; di <= 3; di++) {
+                        for (int dj = -3; dj <= 3; dj++) {
+                            if (((di != 0) || (dj != 0)) && expected.isAlive((i + di) - 3, (j + dj) - 3)) {
+                                neighbours++;
+                            }
+                        }
+                    }
+                    next[i][j] = rule.isAliveNext(expected.isAlive(i - 3, j - 3), neighbours) ? UniverseUtil.ALIVE
+                            : UniverseUtil.DEAD;
+                }
+            }
+            expected = UniverseUtil.createUniverse(next);
+            actual = single.nextGeneration(actual);
+            actualParallel = parallel.nextGeneration(actualParallel);
+            Assert.assertEquals("generation " + generation, expected, actual);
+            Assert.assertEquals("generation " + generation, expected, actualParallel);
+        }
+        Assert.assertTrue(expected.getAliveCells().size() > 0);
+
+        // a pool costs its bands
+        final BoardProfile profile = new BoardProfile(100, 100, 1000, 0);
+        Assert.assertTrue(single.estimateCost(profile) < parallel.estimateCost(profile));
+
+        parallel.close();
+        try {
+            parallel.nextGeneration(actualParallel);
+            Assert.fail("A closed engine has no threads");
+        } catch (final IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("closed"));
+        }
+        for (final int[] interval : new int[][] { {0, 3, 2, 3}, {4, 3, 2, 3}, {3, 9, 2, 3}, {3, 3, -1, 3},
+            {3, 3, 4, 2}}) {
+            try {
+                new LargerThanLifeRule(1, interval[0], interval[1], interval[2], interval[3]);
+                Assert.fail("Rule " + Arrays.toString(interval) + " is not valid");
+            } catch (final IllegalArgumentException e) {
+                Assert.assertNotNull(e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Tests following scenarios. - Tile positions survive a trip through the index on a grid of several blocks -
+     * Stepping tiles gives the same board as stepping rows of words
+     */
+    @Test
+    public final void testMortonGrid() {
+        final MortonGrid narrow = new MortonGrid(70, 300);
+        final boolean[] used = new boolean[narrow.getTiles().length];
+        for (int tr = 0; tr < narrow.getTileRows(); tr++) {
+            for (int tc = 0; tc < narrow.getTileColumns(); tc++) {
+                final int index = narrow.index(tr, tc);
+                Assert.assertFalse(used[index]);
+                used[index] = true;
+                Assert.assertEquals(tr, narrow.tileRow(index));
+                Assert.assertEquals(tc, narrow.tileColumn(index));
+            }
+        }
+        Assert.assertTrue(narrow.getTiles().length < ((narrow.getTileRows() + 16) * (narrow.getTileColumns() + 16)));
+
+        final PackedGrid packed = randomGrid(new Random(11), 61, 133);
+        MortonGrid morton = MortonGrid.of(packed, 0);
+        Assert.assertEquals(packed, morton.toPackedGrid());
+        morton = MortonGrid.of(packed, 20);
+        PackedGrid expected = packed;
+        for (int generation = 0; generation < 20; generation++) {
+            expected = PackedEngine.step(expected);
+            morton = MortonEngine.step(morton);
+            Assert.assertEquals("generation " + generation, UniverseUtil.createUniverse(expected),
+                    UniverseUtil.createUniverse(morton.toPackedGrid()));
+        }
+    }
+
+    /**
+     * Prints cells stepped per microsecond for a board kept as an array of char rows, as GameOfLifeService keeps it,
+     * as rows of words and as Morton ordered tiles. The side of the board can be set with the system property
+     * gameoflife.benchmark.size; boards of 16384 and more do not fit a last level cache even in packed form, and
+     * skip the char rows, which would need 512 MB.
+     */
+    @Test
+    public final void testLayoutThroughput() {
+        final int size = Integer.getInteger("gameoflife.benchmark.size", 1024);
+        final PackedGrid packed = randomGrid(new Random(5), size, size);
+        final MortonGrid morton = MortonGrid.of(packed, 0);
+        final long cells = (long) size * size;
+        if (size < 16384) {
+            final char[][] rows = new char[size][size];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    rows[i][j] = packed.isAlive(i, j) ? UniverseUtil.ALIVE : UniverseUtil.DEAD;
+                }
+            }
+            stepRows(rows);
+            final long start = System.nanoTime();
+            final char[][] rowsNext = stepRows(rows);
+            System.out.println("Rows of chars, " + size + " x " + size + ": "
+                    + ((cells * 1000) / Math.max(1, System.nanoTime() - start)) + " cells/us");
+            Assert.assertEquals(rowsNext.length, rows.length);
+        }
+        PackedEngine.step(packed);
+        MortonEngine.step(morton);
+        long start = System.nanoTime();
+        PackedEngine.step(packed);
+        System.out.println("Rows of words, " + size + " x " + size + ": "
+                + ((cells * 1000) / Math.max(1, System.nanoTime() - start)) + " cells/us");
+        start = System.nanoTime();
+        final MortonGrid mortonNext = MortonEngine.step(morton);
+        System.out.println("Morton tiles, " + size + " x " + size + ": "
+                + ((cells * 1000) / Math.max(1, System.nanoTime() - start)) + " cells/us");
+        Assert.assertTrue(mortonNext.getPopulation() > 0);
+    }
+
+    /**
+     * Grid with about a third of its cells ALIVE.
+     * @param random
+     * @param rows
+     * @param columns
+     * @return PackedGrid
+     */
+    private static PackedGrid randomGrid(final Random random, final int rows, final int columns) {
+        final PackedGrid grid = new PackedGrid(rows, columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                grid.set(i, j, random.nextInt(3) == 0);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Next generation of a board of char rows, same size, counting the neighbours of every cell one by one.
+     * @param rows
+     * @return char[][]
+     */
+    private static char[][] stepRows(final char[][] rows) {
+        final char[][] next = new char[rows.length][];
+        for (int i = 0; i < rows.length; i++) {
+            next[i] = new char[rows[i].length];
+            for (int j = 0; j < rows[i].length; j++) {
+                int neighbours = 0;
+                for (int di = -1; di <= 1; di++) {
+                    for (int dj = -1; dj <= 1; dj++) {
+                        final int r = i + di;
+                        final int c = j + dj;
+                        if (((di != 0) || (dj != 0)) && (r >= 0) && (r < rows.length) && (c >= 0)
+                                && (c < rows[r].length) && (rows[r][c] == UniverseUtil.ALIVE)) {
+                            neighbours++;
+                        }
+                    }
+                }
+                final boolean alive = rows[i][j] == UniverseUtil.ALIVE;
+                next[i][j] = ((neighbours == 3) || (alive && (neighbours == 2))) ? UniverseUtil.ALIVE
+                        : UniverseUtil.DEAD;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Tests following scenarios. - B3/S23/C2 gives the generations of the original algorithm - Brian's Brain and Star
+     * Wars give the same states as applying the rule cell by cell - Rules read back from their text - Trimming keeps
+     * the cells of every plane
+     */
+    @Test
+    public final void testGenerationsRules() {
+        Assert.assertEquals("B2/S345/C4", GenerationsRule.parse("b2/s345/c4").toString());
+        Assert.assertEquals(2, StatePlanes.planesFor(4));
+        Assert.assertEquals(3, StatePlanes.planesFor(5));
+
+        // trimming keeps cells set in any plane, across words
+        final StatePlanes padded = new StatePlanes(6, 70, 3);
+        padded.setState(1, 2, 1);
+        padded.setState(4, 66, 2);
+        final StatePlanes trimmed = padded.trim();
+        Assert.assertEquals(4, trimmed.getRows());
+        Assert.assertEquals(65, trimmed.getColumns());
+        Assert.assertEquals(1, trimmed.getState(0, 0));
+        Assert.assertEquals(2, trimmed.getState(3, 64));
+        Assert.assertEquals((4 * 65) - 2, trimmed.count(0));
+        Assert.assertEquals(0, new StatePlanes(3, 3, 3).trim().getRows());
+
+        final GenerationsEngine conway = new GenerationsEngine(GenerationsRule.conway());
+        final List<Universe> expected = run(null, UniverseUtil.createUniverse(rPentomino), 30);
+        StatePlanes board = StatePlanes.of(expected.get(0), 2);
+        for (int i = 1; i < expected.size(); i++) {
+            board = conway.nextGeneration(board);
+            Assert.assertEquals("generation " + i, expected.get(i), UniverseUtil.createUniverse(board.getAlive()));
+        }
+
+        for (final String text : new String[] {"B2/S/C3", "B2/S345/C4", "B3/S23/C8"}) {
+            final GenerationsRule rule = GenerationsRule.parse(text);
+            final Random random = new Random(3);
+            StatePlanes actual = new StatePlanes(20, 20, rule.getStates());
+            for (int i = 0; i < 20; i++) {
+                for (int j = 0; j < 20; j++) {
+                    actual.setState(i, j, random.nextBoolean() ? 1 : random.nextInt(rule.getStates()));
+                }
+            }
+            for (int generation = 0; generation < 10; generation++) {
+                final StatePlanes next = GenerationsEngine.step(actual, rule);
+                for (int i = 0; i < next.getRows(); i++) {
+                    for (int j = 0; j < next.getColumns(); j++) {
+                        int neighbours = 0;
+                        for (int di = -1; di <= 1; di++) {
+                            for (int dj = -1; dj <= 1; dj++) {
+                                if (((di != 0) || (dj != 0)) && (actual.getState((i + di) - 1, (j + dj) - 1) == 1)) {
+                                    neighbours++;
+                                }
+                            }
+                        }
+                        Assert.assertEquals(text + " generation " + generation,
+                                rule.nextState(actual.getState(i - 1, j - 1), neighbours), next.getState(i, j));
+                    }
+                }
+                actual = next.trim();
+            }
+            Assert.assertTrue(text, actual.count(1) > 0);
+        }
+    }
+
+    /**
+     * Tests following scenarios. - Few cells go in an array, a line in runs and a dense chunk in a bitmap - Region
+     * queries agree with the cell set - Stepping agrees with sparse stepping - A dense chunk moves to an array and
+     * then is dropped as it thins out - Memory follows the population, not the area - Single cells written in place
+     * give the cells and container of a board built from scratch
+     */
+    @Test
+    public final void testChunkedUniverse() {
+        final Random random = new Random(9);
+        final List<Long> keys = new ArrayList<Long>();
+        for (int j = 0; j < 60; j++) {
+            keys.add(CellSet.key(10, j)); // a line in chunk (0, 0)
+        }
+        keys.add(CellSet.key(70, 200)); // a few cells in chunk (1, 3)
+        keys.add(CellSet.key(71, 201));
+        for (int i = -64; i < 0; i++) {
+            for (int j = -64; j < 0; j++) {
+                if (random.nextBoolean()) {
+                    keys.add(CellSet.key(i, j)); // dense chunk (-1, -1)
+                }
+            }
+        }
+        final long[] sorted = new long[keys.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = keys.get(i);
+        }
+        Arrays.sort(sorted);
+        CellSet cells = new CellSet(sorted, sorted.length);
+        ChunkedUniverse board = ChunkedUniverse.of(cells);
+        Assert.assertEquals(ContainerType.RUN, board.getContainerType(0, 0));
+        Assert.assertEquals(ContainerType.ARRAY, board.getContainerType(1, 3));
+        Assert.assertEquals(ContainerType.BITMAP, board.getContainerType(-1, -1));
+        Assert.assertEquals(ContainerType.EMPTY, board.getContainerType(5, 5));
+        Assert.assertEquals(cells, board.toCellSet());
+        Assert.assertEquals(cells.getBounds(), board.getBounds());
+        for (final Region region : new Region[] {new Region(-100, -100, 400, 400), new Region(-10, -10, 30, 30),
+                new Region(70, 200, 1, 1), new Region(5, 5, 0, 10)}) {
+            Assert.assertEquals(cells.countAliveCells(region), board.countAliveCells(region));
+            final List<Cell> expected = cells.getAliveCells(region);
+            final List<Cell> actual = board.getAliveCells(region);
+            Assert.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals(expected.get(i).getRow(), actual.get(i).getRow());
+                Assert.assertEquals(expected.get(i).getColumn(), actual.get(i).getColumn());
+            }
+        }
+        Assert.assertTrue(board.isAlive(71, 201));
+        Assert.assertFalse(board.isAlive(71, 200));
+        Assert.assertTrue(board.getMemoryBytes() < 1000);
+
+        for (int generation = 0; generation < 60; generation++) {
+            cells = SparseEngine.step(cells);
+            board = ChunkedEngine.step(board);
+            Assert.assertEquals("generation " + generation, cells, board.toCellSet());
+        }
+        Assert.assertEquals(cells.size(), board.getPopulation());
+
+        final ChunkedUniverse thinning = ChunkedUniverse.of(new CellSet(sorted, sorted.length));
+        for (int i = -64; i < -8; i++) {
+            for (int j = -64; j < 0; j++) {
+                thinning.set(i, j, false);
+            }
+        }
+        Assert.assertEquals(ContainerType.ARRAY, thinning.getContainerType(-1, -1));
+        for (int i = -8; i < 0; i++) {
+            for (int j = -64; j < 0; j++) {
+                thinning.set(i, j, false);
+            }
+        }
+        Assert.assertEquals(ContainerType.EMPTY, thinning.getContainerType(-1, -1));
+
+        final ChunkedUniverse written = new ChunkedUniverse();
+        final SortedSet<Long> alive = new TreeSet<Long>();
+        for (int step = 0; step < 20000; step++) {
+            // lines that grow and break up, then scattered cells, so that every container is written in place
+            final int row = (step < 8000) ? (random.nextInt(4) * 16) : random.nextInt(64);
+            final int column = random.nextInt(64);
+            final boolean state = (step < 14000) ? (random.nextInt(4) != 0) : (random.nextInt(4) == 0);
+            written.set(row, column, state);
+            if (state) {
+                alive.add(CellSet.key(row, column));
+            } else {
+                alive.remove(CellSet.key(row, column));
+            }
+            if ((step % 250) == 0) {
+                final long[] aliveKeys = new long[alive.size()];
+                int k = 0;
+                for (final Long key : alive) {
+                    aliveKeys[k++] = key;
+                }
+                final CellSet expected = new CellSet(aliveKeys, aliveKeys.length);
+                Assert.assertEquals(expected, written.toCellSet());
+                Assert.assertEquals(alive.size(), written.getPopulation());
+                Assert.assertEquals("step " + step, ChunkedUniverse.of(expected).getContainerType(0, 0),
+                        written.getContainerType(0, 0));
+            }
+        }
+        System.out.println("Chunked board of " + board.getPopulation() + " cells: " + board.getMemoryBytes()
+                + " bytes in " + board.getChunkCount(ContainerType.ARRAY) + " array, "
+                + board.getChunkCount(ContainerType.BITMAP) + " bitmap and " + board.getChunkCount(ContainerType.RUN)
+                + " run chunks");
+    }
+}